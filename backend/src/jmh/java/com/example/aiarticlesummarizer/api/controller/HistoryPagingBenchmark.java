@@ -0,0 +1,121 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import com.example.aiarticlesummarizer.AIArticleSummarizerApplication;
+import com.example.aiarticlesummarizer.api.dto.HistoryCursor;
+import com.example.aiarticlesummarizer.api.dto.SummaryHistoryItem;
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HistoryController#getHistory} over 1M summaries: the first page, a page 990,000 rows deep
+ * by keyset cursor, and the same depth by {@code OFFSET} (how listings were paged before the cursor).
+ * <p>
+ * Boots the application without a web server on the {@code test} profile, with a file database under
+ * {@code target/} as in production ({@code ./data/summarizer}), and seeds the rows in one
+ * {@code INSERT ... SELECT}; an in-memory database makes {@code OFFSET} several times cheaper than it
+ * is on disk. Three rows share each {@code createdAt}, so the cursor's id tie-break is exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HistoryPagingBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int DEPTH = 990_000;
+    private static final int PAGE_SIZE = 10;
+    private static final Path DATABASE = Path.of("target", "history-paging").toAbsolutePath();
+
+    private ConfigurableApplicationContext context;
+    private HistoryController historyController;
+    private SummaryRepository summaryRepository;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        deleteDatabase();
+        context = new SpringApplicationBuilder(AIArticleSummarizerApplication.class)
+                .profiles("test")
+                // Arguments, not builder properties: those are defaults, which application-test.yml overrides
+                .run("--spring.main.web-application-type=none",
+                        // Identical queries on an unchanged table would otherwise be answered from H2's result cache
+                        "--spring.datasource.url=jdbc:h2:file:" + DATABASE + ";OPTIMIZE_REUSE_RESULTS=FALSE",
+                        "--logging.level.com.example.aiarticlesummarizer=WARN");
+        historyController = context.getBean(HistoryController.class);
+        summaryRepository = context.getBean(SummaryRepository.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("""
+                INSERT INTO summaries (id, original_content, summary, target_length, model, latency_ms, status, created_at)
+                SELECT X, 'Article ' || X, 'Summary ' || X, 'short', 'llama3', 1000, ?,
+                       DATEADD('SECOND', X / 3, TIMESTAMP '2024-01-01 00:00:00')
+                FROM SYSTEM_RANGE(1, ?)
+                """, Summary.STATUS_COMPLETED, ROWS);
+        jdbc.execute("ANALYZE");
+
+        // The cursor a client holds after paging down to DEPTH rows
+        Summary last = summaryRepository.findByOrderByCreatedAtDescIdDesc(PageRequest.of(DEPTH / PAGE_SIZE - 1, PAGE_SIZE))
+                .get(PAGE_SIZE - 1);
+        deepCursor = new HistoryCursor(last.getCreatedAt(), last.getId()).encode();
+        check();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        deleteDatabase();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<SummaryHistoryItem>> firstPage() {
+        return historyController.getHistory(PAGE_SIZE, null, 0, null, null, false);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<SummaryHistoryItem>> deepPageByCursor() {
+        return historyController.getHistory(PAGE_SIZE, null, 0, null, deepCursor, false);
+    }
+
+    @Benchmark
+    public List<Summary> deepPageByOffset() {
+        return summaryRepository.findByOrderByCreatedAtDescIdDesc(PageRequest.of(DEPTH / PAGE_SIZE, PAGE_SIZE));
+    }
+
+    private static void deleteDatabase() throws IOException {
+        Files.deleteIfExists(Path.of(DATABASE + ".mv.db"));
+        Files.deleteIfExists(Path.of(DATABASE + ".trace.db"));
+    }
+
+    /** Both deep pages must be the same rows, or the comparison is meaningless. */
+    private void check() {
+        List<Long> byCursor = deepPageByCursor().getBody().stream().map(SummaryHistoryItem::getId).toList();
+        List<Long> byOffset = deepPageByOffset().stream().map(Summary::getId).toList();
+        if (byCursor.size() != PAGE_SIZE || !byCursor.equals(byOffset)) {
+            throw new IllegalStateException("Cursor page " + byCursor + " differs from offset page " + byOffset);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aiarticlesummarizer.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic article-like text for benchmarks: sentences of function words and content words
+ * drawn from a Zipf-distributed vocabulary, with numbers and punctuation. A realistic long tail
+ * matters for {@link ExtractiveCompressor}, whose graph would be near-complete over a few dozen words.
+ */
+final class BenchmarkText {
+
+    private static final String[] FUNCTION_WORDS = {
+            "the", "of", "and", "to", "a", "in", "that", "is", "was", "for", "on", "with", "as", "by",
+            "it", "at", "from", "has", "have", "be", "are", "this", "which", "but", "not", "their"};
+
+    private static final String[] COMMON_WORDS = {
+            "market", "central", "bank", "raised", "interest", "rates", "inflation", "data", "showed",
+            "prices", "rising", "faster", "expected", "analysts", "government", "policy", "growth",
+            "housing", "energy", "supply", "chain", "companies", "reported", "earnings", "quarter",
+            "investors", "tariffs", "exports", "workers", "wages", "semiconductor", "manufacturing",
+            "election", "minister", "announced", "spending", "plan", "über", "café", "naïve"};
+
+    private static final String[] SYLLABLES = {
+            "ba", "con", "de", "fi", "gra", "hel", "in", "jus", "ka", "lo", "men", "nor", "op", "pre",
+            "quo", "ri", "sta", "tur", "ul", "ver", "wa", "xen", "yo", "zel", "tion", "ment", "ing", "er"};
+
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final String[] VOCABULARY = vocabulary();
+    private static final double[] CUMULATIVE = zipf(VOCABULARY_SIZE);
+
+    private BenchmarkText() {
+    }
+
+    static String article(int chars) {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder(chars + 200);
+        int sentences = 0;
+        while (text.length() < chars) {
+            int words = 8 + random.nextInt(18);
+            for (int i = 0; i < words; i++) {
+                String word = random.nextInt(5) < 2
+                        ? FUNCTION_WORDS[random.nextInt(FUNCTION_WORDS.length)]
+                        : VOCABULARY[rank(random.nextDouble())];
+                if (i == 0) {
+                    text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                } else {
+                    text.append(word);
+                }
+                if (random.nextInt(20) == 0) {
+                    text.append(' ').append(random.nextInt(1000)).append('%');
+                } else if (random.nextInt(25) == 0) {
+                    text.append(',');
+                }
+                text.append(i == words - 1 ? "." : " ");
+            }
+            text.append(++sentences % 6 == 0 ? "\n\n" : " ");
+        }
+        return text.substring(0, chars);
+    }
+
+    private static int rank(double u) {
+        int index = Arrays.binarySearch(CUMULATIVE, u);
+        return Math.min(VOCABULARY_SIZE - 1, index >= 0 ? index : -index - 1);
+    }
+
+    /** The common words take the top ranks; the long tail is made of generated words. */
+    private static String[] vocabulary() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] words = Arrays.copyOf(COMMON_WORDS, VOCABULARY_SIZE);
+        for (int w = COMMON_WORDS.length; w < VOCABULARY_SIZE; w++) {
+            StringBuilder word = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[w] = word.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int r = 0; r < size; r++) {
+            sum += 1.0 / (r + 1);
+            cumulative[r] = sum;
+        }
+        for (int r = 0; r < size; r++) {
+            cumulative[r] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ExtractiveCompressor#compress} with the default settings on article text from
+ * 10 KB to 1 MB. It runs on the request thread before every model call, so a 100 KB article has
+ * to rank in single-digit milliseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractiveCompressorBenchmark {
+
+    @Param({"10240", "102400", "1048576"})
+    int bytes;
+
+    private String text;
+    private ExtractiveCompressor compressor;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkText.article(bytes);
+        compressor = new ExtractiveCompressor(new SimpleMeterRegistry(), true, 0.6, 800, 0, 5000, 30, 12);
+    }
+
+    @Benchmark
+    public ExtractiveCompressor.Compressed compress() {
+        return compressor.compress(text);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One streamed summary (2,000 characters, a few hundred token chunks) written as SSE frames, per
+ * token and coalesced. Each frame is built and written as {@code SummarizationController} sends it: an
+ * {@link SseEmitter} event with id and name, its parts encoded as UTF-8, then a flush, which here
+ * is a {@code write} to {@code /dev/null} standing in for the socket.
+ * <p>
+ * The tokens are already available when the stream is subscribed. That is the case under load,
+ * when tokens pile up between writes. Coalesced frames are then bounded by {@code max-bytes}
+ * ({@code 1024} and a small {@code 64}), not by the 30 ms window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamCoalescerBenchmark {
+
+    @Param({"per-token", "coalesced-64", "coalesced-1024"})
+    String mode;
+
+    private List<StreamEvent> tokens;
+    private StreamCoalescer coalescer;
+    private OutputStream socket;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tokens = new ArrayList<>();
+        for (String token : BenchmarkText.article(2000).split("(?<=\\s)")) {
+            tokens.add(StreamEvent.chunk(token));
+        }
+        boolean enabled = !mode.equals("per-token");
+        int maxBytes = enabled ? Integer.parseInt(mode.substring(mode.indexOf('-') + 1)) : 1024;
+        coalescer = new StreamCoalescer(new SimpleMeterRegistry(), enabled, 30, maxBytes);
+        File devNull = new File("/dev/null");
+        socket = new BufferedOutputStream(devNull.exists()
+                ? new FileOutputStream(devNull) : OutputStream.nullOutputStream(), 8192);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+    }
+
+    /** Returns the number of frames written. */
+    @Benchmark
+    public long stream() {
+        return coalescer.coalesce(Flux.fromIterable(tokens))
+                .doOnNext(this::send)
+                .count()
+                .block();
+    }
+
+    private void send(StreamEvent event) {
+        SseEmitter.SseEventBuilder frame = SseEmitter.event()
+                .id("stream:" + sequence++)
+                .name(event.name())
+                .data(event.data());
+        try {
+            for (ResponseBodyEmitter.DataWithMediaType part : frame.build()) {
+                socket.write(part.getData().toString().getBytes(StandardCharsets.UTF_8));
+            }
+            socket.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
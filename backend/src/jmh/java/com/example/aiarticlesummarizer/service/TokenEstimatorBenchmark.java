@@ -0,0 +1,52 @@
+package com.example.aiarticlesummarizer.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link TokenEstimator#estimate} and of {@link PromptBudget#fit}'s sentence walk on article
+ * text from 10 KB to 1 MB. The estimate runs several times per request, so it has to stay linear
+ * and allocation-free.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenEstimatorBenchmark {
+
+    @Param({"10240", "102400", "1048576"})
+    int bytes;
+
+    private String text;
+    private PromptBudget promptBudget;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkText.article(bytes);
+        // No endpoint pool needed: fit(content, model, budget) takes the budget directly
+        promptBudget = new PromptBudget(null, 0.75, 8192, 4096, 768, 30000);
+    }
+
+    @Benchmark
+    public int estimate() {
+        return TokenEstimator.estimate(text, TokenEstimator.Family.LLAMA3);
+    }
+
+    @Benchmark
+    public PromptBudget.Fitted fitToBudget() {
+        return promptBudget.fit(text, "llama3", 5376);
+    }
+}
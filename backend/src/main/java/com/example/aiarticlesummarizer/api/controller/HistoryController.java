@@ -1,49 +1,124 @@
 package com.example.aiarticlesummarizer.api.controller;
 
+import com.example.aiarticlesummarizer.api.dto.HistoryCursor;
 import com.example.aiarticlesummarizer.api.dto.SummaryHistoryItem;
 import com.example.aiarticlesummarizer.model.Summary;
 import com.example.aiarticlesummarizer.repository.SummaryRepository;
 import com.example.aiarticlesummarizer.service.ExportService;
+import com.example.aiarticlesummarizer.service.SummarySearchIndex;
+import com.example.aiarticlesummarizer.service.SummaryWriteBehind;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/history")
 public class HistoryController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final SummaryRepository summaryRepository;
     private final ExportService exportService;
+    private final SummaryWriteBehind summaryWriteBehind;
+    private final SummarySearchIndex summarySearchIndex;
 
-    public HistoryController(SummaryRepository summaryRepository, ExportService exportService) {
+    public HistoryController(SummaryRepository summaryRepository, ExportService exportService,
+                             SummaryWriteBehind summaryWriteBehind, SummarySearchIndex summarySearchIndex) {
         this.summaryRepository = summaryRepository;
         this.exportService = exportService;
+        this.summaryWriteBehind = summaryWriteBehind;
+        this.summarySearchIndex = summarySearchIndex;
     }
 
+    /**
+     * Latest summaries, {@code limit} at a time (at most 100). When more rows follow, an opaque
+     * {@code X-Next-Cursor} header is returned; passing it back as {@code cursor} reads the next page.
+     * <p>
+     * With {@code search}, a page of matches ranked by relevance, each with a highlighted
+     * {@code snippet}. Search results are paged with {@code page} and {@code size} (default
+     * {@code limit}); the total number of matches is in {@code X-Total-Count}.
+     * <p>
+     * Streamed summaries are saved in the background. Clients reading history right after a stream's
+     * {@code done} event pass {@code afterStream=true}, which waits (briefly) for queued saves first.
+     */
     @GetMapping
     public ResponseEntity<List<SummaryHistoryItem>> getHistory(
             @RequestParam(value = "limit", defaultValue = "10") int limit,
-            @RequestParam(value = "search", required = false) String search) {
-        
-        List<Summary> summaries;
-        
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "afterStream", defaultValue = "false") boolean afterStream) {
+
+        if (afterStream) {
+            summaryWriteBehind.awaitFlushed();
+        }
+
         if (search != null && !search.isBlank()) {
-            summaries = summaryRepository.searchSummaries(search);
-        } else {
-            summaries = summaryRepository.findTop10ByOrderByCreatedAtDesc();
+            return searchHistory(search.strip(), Math.max(0, page),
+                    Math.min(MAX_PAGE_SIZE, Math.max(1, size != null ? size : limit)));
         }
-        
-        List<SummaryHistoryItem> items = summaries.stream()
-                .limit(limit)
-                .map(this::toHistoryItem)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(items);
+
+        return listHistory(cursor != null && !cursor.isBlank() ? HistoryCursor.decode(cursor) : null,
+                Math.min(MAX_PAGE_SIZE, Math.max(1, limit)));
+    }
+
+    private ResponseEntity<List<SummaryHistoryItem>> listHistory(HistoryCursor after, int limit) {
+        // One extra row tells whether another page follows
+        PageRequest window = PageRequest.of(0, limit + 1);
+        List<Summary> rows = after == null
+                ? summaryRepository.findByOrderByCreatedAtDescIdDesc(window)
+                : summaryRepository.findPageAfter(after.createdAt(), after.id(), window);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Summary last = rows.get(limit - 1);
+            response.header(NEXT_CURSOR_HEADER, new HistoryCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return response.body(rows.stream().map(this::toHistoryItem).collect(Collectors.toList()));
+    }
+
+    private ResponseEntity<List<SummaryHistoryItem>> searchHistory(String search, int page, int size) {
+        SummarySearchIndex.Result result = summarySearchIndex.search(search, page, size);
+        if (result == null) {
+            // Index still loading at startup
+            Page<Summary> matches = summaryRepository.searchSummaries(search, PageRequest.of(page, size));
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(matches.getTotalElements()))
+                    .body(matches.map(this::toHistoryItem).getContent());
+        }
+
+        List<Long> ids = result.hits().stream().map(SummarySearchIndex.Hit::summaryId).toList();
+        Map<Long, Summary> rows = summaryRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Summary::getId, Function.identity()));
+        List<SummaryHistoryItem> items = new ArrayList<>();
+        for (Long id : ids) {
+            Summary summary = rows.get(id);
+            if (summary == null) {
+                // Deleted outside this instance (e.g. by another replica); drop it from the index too
+                summarySearchIndex.remove(id);
+                continue;
+            }
+            SummaryHistoryItem item = toHistoryItem(summary);
+            item.setSnippet(summarySearchIndex.snippet(summary, search));
+            items.add(item);
+        }
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(result.total()))
+                .body(items);
     }
 
     @GetMapping("/{id}")
@@ -58,6 +133,7 @@ public class HistoryController {
     public ResponseEntity<Void> deleteSummary(@PathVariable Long id) {
         if (summaryRepository.existsById(id)) {
             summaryRepository.deleteById(id);
+            summarySearchIndex.remove(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -66,6 +142,7 @@ public class HistoryController {
     @DeleteMapping
     public ResponseEntity<Void> deleteAllHistory() {
         summaryRepository.deleteAll();
+        summarySearchIndex.clear();
         return ResponseEntity.noContent().build();
     }
 
@@ -120,6 +197,7 @@ public class HistoryController {
         item.setTargetLength(summary.getTargetLength());
         item.setModel(summary.getModel());
         item.setLatencyMs(summary.getLatencyMs());
+        item.setStatus(summary.getStatus() != null ? summary.getStatus() : Summary.STATUS_COMPLETED);
         item.setCreatedAt(summary.getCreatedAt());
         
         // Create preview from original content
@@ -0,0 +1,89 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import com.example.aiarticlesummarizer.api.dto.JobResponse;
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.model.JobStatus;
+import com.example.aiarticlesummarizer.model.SummaryJob;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import com.example.aiarticlesummarizer.service.SummaryJobService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Asynchronous summarization: {@code POST} queues a job and returns its id immediately, clients poll
+ * {@code GET /api/v1/jobs/{id}} until it has succeeded or failed. Avoids holding an HTTP connection
+ * open for the whole generation.
+ */
+@RestController
+@RequestMapping("/api/v1/jobs")
+public class JobController {
+
+    private static final String POLL_INTERVAL_SECONDS = "2";
+
+    private final SummaryJobService jobService;
+    private final SummaryRepository summaryRepository;
+
+    public JobController(SummaryJobService jobService, SummaryRepository summaryRepository) {
+        this.jobService = jobService;
+        this.summaryRepository = summaryRepository;
+    }
+
+    @PostMapping
+    public ResponseEntity<JobResponse> submit(@Valid @RequestBody SummarizeRequest request,
+                                              Authentication authentication) {
+        SummaryJob job = jobService.submit(request, authentication.getName());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .header(HttpHeaders.RETRY_AFTER, POLL_INTERVAL_SECONDS)
+                .body(toResponse(job));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobResponse> getJob(@PathVariable Long id, Authentication authentication) {
+        return jobService.find(id)
+                .filter(job -> canView(job, authentication))
+                .map(job -> {
+                    JobResponse response = toResponse(job);
+                    boolean pending = job.getStatus() == JobStatus.QUEUED || job.getStatus() == JobStatus.RUNNING;
+                    return pending
+                            ? ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER, POLL_INTERVAL_SECONDS).body(response)
+                            : ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Jobs are private to their submitter; admins can see all of them. */
+    private boolean canView(SummaryJob job, Authentication authentication) {
+        return job.getOwner().equals(authentication.getName())
+                || authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    }
+
+    private JobResponse toResponse(SummaryJob job) {
+        JobResponse response = new JobResponse();
+        response.setId(job.getId());
+        response.setStatus(job.getStatus().name().toLowerCase());
+        response.setAttempts(job.getAttempts());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setError(job.getError());
+        if (job.getSummaryId() != null) {
+            summaryRepository.findById(job.getSummaryId()).ifPresent(summary -> {
+                SummarizeResponse result = new SummarizeResponse(summary.getSummary(), summary.getModel(),
+                        summary.getLatencyMs());
+                result.setId(summary.getId());
+                result.setCreatedAt(summary.getCreatedAt());
+                result.setSourceUrl(summary.getSourceUrl());
+                result.setArticleTitle(summary.getArticleTitle());
+                response.setResult(result);
+            });
+        }
+        return response;
+    }
+}
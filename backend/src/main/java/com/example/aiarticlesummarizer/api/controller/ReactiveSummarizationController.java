@@ -0,0 +1,77 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.llm.Priority;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import com.example.aiarticlesummarizer.service.StreamCoalescer;
+import com.example.aiarticlesummarizer.service.StreamingSummarizationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Streaming without a thread per connection: the summary is returned as a {@code Flux} that Spring MVC
+ * writes through servlet async I/O, so an idle stream (queued for the model, or between tokens) holds
+ * only its connection. Same events as {@code /api/v1/summarize/stream}, plus heartbeat comments that
+ * keep proxies from closing quiet connections.
+ */
+@RestController
+@RequestMapping("/api/v2/summarize")
+public class ReactiveSummarizationController {
+
+    private static final String DONE = "done";
+    private static final String ERROR = "error";
+
+    private final StreamingSummarizationService streamingSummarizationService;
+    private final StreamCoalescer streamCoalescer;
+    private final Duration heartbeatInterval;
+
+    public ReactiveSummarizationController(StreamingSummarizationService streamingSummarizationService,
+                                           StreamCoalescer streamCoalescer,
+                                           @Value("${app.streaming.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.streamingSummarizationService = streamingSummarizationService;
+        this.streamCoalescer = streamCoalescer;
+        this.heartbeatInterval = Duration.ofSeconds(Math.max(1, heartbeatSeconds));
+    }
+
+    /**
+     * Streams {@code chunk} events followed by {@code done}, or an {@code error} event; see the v1
+     * endpoint for {@code ?draft=true}.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> summarizeStream(@Valid @RequestBody SummarizeRequest request,
+                                                         @RequestParam(name = "draft", defaultValue = "false") boolean draft,
+                                                         HttpServletRequest httpRequest) {
+        SchedulingContext schedulingContext = SummarizationController.schedulingContext(httpRequest, Priority.INTERACTIVE);
+
+        Flux<ServerSentEvent<String>> events = schedulingContext
+                .wrap(Flux.defer(() -> {
+                    try {
+                        return streamCoalescer.coalesce(streamingSummarizationService.summarizeStream(request, draft));
+                    } catch (IOException e) {
+                        return Flux.error(e);
+                    }
+                }))
+                // URL fetch and history lookups block; keep them off the request thread
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(event -> ServerSentEvent.builder(event.data()).event(event.name()).build())
+                .concatWith(Mono.just(ServerSentEvent.builder("[DONE]").event(DONE).build()))
+                .onErrorResume(error -> Mono.just(ServerSentEvent.builder(StreamErrorMessages.of(error)).event(ERROR).build()));
+
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval, heartbeatInterval)
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+
+        // Heartbeats run until the terminal event has been emitted
+        return Flux.merge(events, heartbeats)
+                .takeUntil(event -> DONE.equals(event.event()) || ERROR.equals(event.event()));
+    }
+}
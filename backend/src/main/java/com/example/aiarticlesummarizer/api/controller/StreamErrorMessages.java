@@ -0,0 +1,50 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import com.example.aiarticlesummarizer.llm.OverloadedException;
+
+/**
+ * Messages for {@code error} events of the streaming endpoints, where failures are reported in-band
+ * rather than through {@link com.example.aiarticlesummarizer.api.GlobalExceptionHandler}.
+ */
+final class StreamErrorMessages {
+
+    private StreamErrorMessages() {
+    }
+
+    /**
+     * Build a user-friendly error message from an exception (aligned with GlobalExceptionHandler).
+     */
+    static String of(Throwable ex) {
+        if (ex instanceof OverloadedException overloaded) {
+            return overloaded.getMessage() + " (retry after " + overloaded.getRetryAfterSeconds() + "s)";
+        }
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        String msg = cause.getMessage() != null ? cause.getMessage() : "";
+
+        if (cause instanceof java.io.IOException) {
+            if (msg.contains("403") || msg.contains("Forbidden")) {
+                return "Failed to fetch content from URL. Access forbidden. The website may block automated requests. You can paste the article text in the Text tab instead.";
+            }
+            if (msg.contains("timeout") || msg.contains("Timeout")) {
+                return "Failed to fetch content from URL. Request timed out. The website may be slow or unreachable.";
+            }
+            if (msg.contains("404") || msg.contains("Not Found")) {
+                return "Failed to fetch content from URL. URL not found. Please check the URL and try again.";
+            }
+            return "Failed to fetch content from URL. " + (msg.length() > 200 ? msg.substring(0, 200) + "…" : msg);
+        }
+        if (msg.contains("connection") || msg.contains("Connection refused") || msg.contains("connect")) {
+            return "Cannot connect to Ollama. Make sure Ollama is running (ollama serve) and accessible at http://localhost:11434";
+        }
+        if (msg.contains("model") || msg.contains("not found")) {
+            return "Model not found. Make sure you've downloaded the model: ollama pull llama3";
+        }
+        if (msg.contains("timeout") || msg.contains("read timeout")) {
+            return "Request timed out. The model may be processing a large input. Please try again.";
+        }
+        if (msg.contains("database") || msg.contains("SQL") || msg.contains("H2")) {
+            return "Database error. Check backend logs for details.";
+        }
+        return msg.length() > 300 ? msg.substring(0, 300) + "…" : (msg.isBlank() ? "An error occurred." : msg);
+    }
+}
@@ -1,19 +1,42 @@
 package com.example.aiarticlesummarizer.api.controller;
 
+import com.example.aiarticlesummarizer.api.dto.BatchItemResult;
+import com.example.aiarticlesummarizer.api.dto.BatchSummarizeRequest;
 import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
 import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.llm.OverloadedException;
+import com.example.aiarticlesummarizer.llm.Priority;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import com.example.aiarticlesummarizer.service.BatchSummarizationService;
 import com.example.aiarticlesummarizer.service.SummarizationService;
+import com.example.aiarticlesummarizer.service.StreamCoalescer;
+import com.example.aiarticlesummarizer.service.StreamEvent;
+import com.example.aiarticlesummarizer.service.StreamReplayBuffer;
 import com.example.aiarticlesummarizer.service.StreamingSummarizationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/v1/summarize")
@@ -22,16 +45,42 @@ public class SummarizationController {
 
     private final SummarizationService summarizationService;
     private final StreamingSummarizationService streamingSummarizationService;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final BatchSummarizationService batchSummarizationService;
+    private final StreamCoalescer streamCoalescer;
+    private final StreamReplayBuffer streamReplayBuffer;
+    /** Starts v1 streams (URL fetch, cache lookup, subscription); bounded so a burst is shed, not queued forever. */
+    private final ThreadPoolExecutor executor;
 
-    public SummarizationController(SummarizationService summarizationService, StreamingSummarizationService streamingSummarizationService) {
+    public SummarizationController(SummarizationService summarizationService,
+                                   StreamingSummarizationService streamingSummarizationService,
+                                   BatchSummarizationService batchSummarizationService,
+                                   StreamCoalescer streamCoalescer,
+                                   StreamReplayBuffer streamReplayBuffer,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.streaming.executor.threads:64}") int threads,
+                                   @Value("${app.streaming.executor.queue-capacity:100}") int queueCapacity) {
         this.summarizationService = summarizationService;
         this.streamingSummarizationService = streamingSummarizationService;
+        this.batchSummarizationService = batchSummarizationService;
+        this.streamCoalescer = streamCoalescer;
+        this.streamReplayBuffer = streamReplayBuffer;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, "sse-stream", Tags.empty()).bindTo(meterRegistry);
     }
 
     @PostMapping
-    public ResponseEntity<SummarizeResponse> summarize(@Valid @RequestBody SummarizeRequest request) {
-        try {
+    public ResponseEntity<SummarizeResponse> summarize(@Valid @RequestBody SummarizeRequest request,
+                                                       HttpServletRequest httpRequest) {
+        try (SchedulingContext.Scope ignored = schedulingContext(httpRequest, Priority.STANDARD).bind()) {
             SummarizeResponse response = summarizationService.summarize(request);
             return ResponseEntity.ok(response);
         } catch (java.io.IOException e) {
@@ -44,35 +93,92 @@ public class SummarizationController {
     /** Servlet async timeout is configured in application.yml (e.g. 15 min). Emitter timeout must be >= that. */
     private static final long STREAM_EMITTER_TIMEOUT_MS = 900_000L; // 15 minutes
 
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    /**
+     * Streams the summary as {@code chunk} events followed by {@code done}. With {@code ?draft=true}
+     * an extractive {@code draft} event comes first, within milliseconds, and is superseded by the chunks.
+     * <p>
+     * Events carry ids; a retry that sends the last one received as {@code Last-Event-ID} resumes the
+     * same generation from the next event instead of starting a new one.
+     */
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter summarizeStream(@Valid @RequestBody SummarizeRequest request) {
+    public SseEmitter summarizeStream(@Valid @RequestBody SummarizeRequest request,
+                                      @RequestParam(name = "draft", defaultValue = "false") boolean draft,
+                                      @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                      HttpServletRequest httpRequest) {
+        StreamReplayBuffer.Position position = StreamReplayBuffer.Position.parse(lastEventId);
+        if (position != null) {
+            return stream(httpRequest, () -> resume(position));
+        }
+        return stream(httpRequest, () -> streamReplayBuffer.open(
+                // Tokens are merged into a few frames per second rather than one write each
+                streamCoalescer.coalesce(streamingSummarizationService.summarizeStream(request, draft))));
+    }
+
+    /**
+     * Resumes a stream without resending the request, as {@code EventSource} reconnects do. The position
+     * comes from {@code Last-Event-ID}, or from {@code ?lastEventId=} where headers cannot be set.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter resumeStream(@RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                   @RequestParam(name = "lastEventId", required = false) String lastEventIdParam,
+                                   HttpServletRequest httpRequest) {
+        StreamReplayBuffer.Position position =
+                StreamReplayBuffer.Position.parse(lastEventId != null ? lastEventId : lastEventIdParam);
+        return stream(httpRequest, () -> resume(position));
+    }
+
+    private StreamReplayBuffer.Resumable resume(StreamReplayBuffer.Position position) {
+        return new StreamReplayBuffer.Resumable(position != null ? position.streamId() : null,
+                streamReplayBuffer.resume(position));
+    }
+
+    /** Source of the events for one streaming response. */
+    @FunctionalInterface
+    private interface StreamSource {
+        StreamReplayBuffer.Resumable open() throws IOException;
+    }
+
+    private SseEmitter stream(HttpServletRequest httpRequest, StreamSource source) {
         SseEmitter emitter = new SseEmitter(STREAM_EMITTER_TIMEOUT_MS);
+        SchedulingContext schedulingContext = schedulingContext(httpRequest, Priority.INTERACTIVE);
+        // Disposed on disconnect, timeout or a failed write; the generation itself keeps running for
+        // the resume grace period (see StreamReplayBuffer) and is cancelled if nobody reconnects
+        Disposable.Swap subscription = Disposables.swap();
 
         emitter.onTimeout(() -> {
+            subscription.dispose();
             sendStreamError(emitter, "Request timed out. The summary took too long to generate. Try a shorter article or summary length.");
         });
-        emitter.onError((ex) -> {
-            String message = streamErrorMessage(ex);
-            sendStreamError(emitter, message);
-        });
+        // The client is gone, so there is nobody to send an error event to. Sending one from this
+        // container thread would also contend for the emitter with the thread writing chunks.
+        emitter.onError(ex -> subscription.dispose());
 
-        executor.execute(() -> {
+        Runnable start = schedulingContext.wrap(() -> {
             try {
-                Flux<String> stream = streamingSummarizationService.summarizeStream(request);
-                
-                stream.subscribe(
-                    chunk -> {
-                        if (chunk == null) return;
+                StreamReplayBuffer.Resumable stream = source.open();
+                String streamId = stream.streamId();
+
+                subscription.update(stream.events().subscribe(
+                    sequenced -> {
+                        StreamEvent event = sequenced.event();
+                        if (event == null || event.data() == null) return;
                         try {
-                            emitter.send(SseEmitter.event()
-                                    .data(chunk)
-                                    .name("chunk"));
+                            SseEmitter.SseEventBuilder frame = SseEmitter.event()
+                                    .data(event.data())
+                                    .name(event.name());
+                            if (streamId != null) {
+                                frame.id(new StreamReplayBuffer.Position(streamId, sequenced.seq()).eventId());
+                            }
+                            emitter.send(frame);
                         } catch (IOException e) {
-                            sendStreamError(emitter, e.getMessage());
+                            // Write failed: the client went away mid-stream
+                            subscription.dispose();
                         }
                     },
                     error -> {
-                        String message = streamErrorMessage(error);
+                        String message = StreamErrorMessages.of(error);
                         sendStreamError(emitter, message);
                     },
                     () -> {
@@ -82,21 +188,59 @@ public class SummarizationController {
                                     .name("done"));
                             emitter.complete();
                         } catch (IOException e) {
-                            sendStreamError(emitter, e.getMessage());
+                            subscription.dispose();
                         }
                     }
-                );
+                ));
             } catch (Exception e) {
                 // Any exception (e.g. 403 during URL fetch) before/during stream start:
                 // send one SSE error event so client gets a clear message and response stays text/event-stream
-                String message = streamErrorMessage(e);
+                String message = StreamErrorMessages.of(e);
                 sendStreamError(emitter, message);
             }
         });
 
+        try {
+            executor.execute(start);
+        } catch (RejectedExecutionException e) {
+            // Every stream thread is busy and the queue is full: 429 like admission control
+            throw new OverloadedException("Too many summaries are starting. Please retry shortly.", 1);
+        }
         return emitter;
     }
 
+    /**
+     * Summarizes up to 500 URLs or texts in one call. Results stream back as NDJSON, one line per item
+     * in completion order; a failed item produces an error line and does not stop the batch.
+     * Model calls run at background priority so a batch cannot starve interactive users.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchItemResult> summarizeBatch(@Valid @RequestBody BatchSummarizeRequest request,
+                                                HttpServletRequest httpRequest) {
+        SchedulingContext schedulingContext = schedulingContext(httpRequest, Priority.BACKGROUND);
+        return batchSummarizationService.summarizeBatch(request.getItems(), schedulingContext)
+                .map(outcome -> outcome.error() == null
+                        ? BatchItemResult.success(outcome.index(), outcome.response())
+                        : BatchItemResult.error(outcome.index(), StreamErrorMessages.of(outcome.error())));
+    }
+
+    /**
+     * Scheduling identity for fair sharing of model capacity: the JWT principal when present,
+     * otherwise the client address (the streaming endpoint also accepts anonymous callers).
+     */
+    static SchedulingContext schedulingContext(HttpServletRequest httpRequest, Priority priority) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String user = (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken))
+                ? auth.getName()
+                : "anon:" + httpRequest.getRemoteAddr();
+        return new SchedulingContext(user, priority);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
     /**
      * Send a single SSE "error" event with the given message and complete the emitter.
      * Keeps response as text/event-stream so the client can parse it consistently.
@@ -112,39 +256,4 @@ public class SummarizationController {
             emitter.completeWithError(sendEx);
         }
     }
-
-    /**
-     * Build a user-friendly error message from an exception (aligned with GlobalExceptionHandler).
-     */
-    private String streamErrorMessage(Throwable ex) {
-        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
-        String msg = cause.getMessage() != null ? cause.getMessage() : "";
-
-        if (cause instanceof java.io.IOException) {
-            if (msg.contains("403") || msg.contains("Forbidden")) {
-                return "Failed to fetch content from URL. Access forbidden. The website may block automated requests. You can paste the article text in the Text tab instead.";
-            }
-            if (msg.contains("timeout") || msg.contains("Timeout")) {
-                return "Failed to fetch content from URL. Request timed out. The website may be slow or unreachable.";
-            }
-            if (msg.contains("404") || msg.contains("Not Found")) {
-                return "Failed to fetch content from URL. URL not found. Please check the URL and try again.";
-            }
-            return "Failed to fetch content from URL. " + (msg.length() > 200 ? msg.substring(0, 200) + "…" : msg);
-        }
-        if (msg.contains("connection") || msg.contains("Connection refused") || msg.contains("connect")) {
-            return "Cannot connect to Ollama. Make sure Ollama is running (ollama serve) and accessible at http://localhost:11434";
-        }
-        if (msg.contains("model") || msg.contains("not found")) {
-            return "Model not found. Make sure you've downloaded the model: ollama pull llama3";
-        }
-        if (msg.contains("timeout") || msg.contains("read timeout")) {
-            return "Request timed out. The model may be processing a large input. Please try again.";
-        }
-        if (msg.contains("database") || msg.contains("SQL") || msg.contains("H2")) {
-            return "Database error. Check backend logs for details.";
-        }
-        return msg.length() > 300 ? msg.substring(0, 300) + "…" : (msg.isBlank() ? "An error occurred." : msg);
-    }
 }
-
@@ -0,0 +1,64 @@
+package com.example.aiarticlesummarizer.api.dto;
+
+/**
+ * One NDJSON line of a batch response. Emitted as soon as the item finishes, so lines arrive in
+ * completion order; {@code index} refers to the position in the request.
+ */
+public class BatchItemResult {
+
+    private int index;
+    private String status; // "success" or "error"
+    private SummarizeResponse result;
+    private String error;
+
+    public BatchItemResult() {
+    }
+
+    public static BatchItemResult success(int index, SummarizeResponse result) {
+        BatchItemResult item = new BatchItemResult();
+        item.setIndex(index);
+        item.setStatus("success");
+        item.setResult(result);
+        return item;
+    }
+
+    public static BatchItemResult error(int index, String error) {
+        BatchItemResult item = new BatchItemResult();
+        item.setIndex(index);
+        item.setStatus("error");
+        item.setError(error);
+        return item;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public SummarizeResponse getResult() {
+        return result;
+    }
+
+    public void setResult(SummarizeResponse result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.aiarticlesummarizer.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchSummarizeRequest {
+
+    @NotEmpty(message = "items must not be empty")
+    @Size(max = 500, message = "At most 500 items per batch")
+    private List<@Valid SummarizeRequest> items; // Each item has its own url/content and targetLength
+
+    public List<SummarizeRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<SummarizeRequest> items) {
+        this.items = items;
+    }
+}
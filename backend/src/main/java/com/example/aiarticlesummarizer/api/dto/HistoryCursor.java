@@ -0,0 +1,36 @@
+package com.example.aiarticlesummarizer.api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the history listing: the {@code (createdAt, id)} of the last row a client has seen.
+ * Clients get it as an opaque token and send it back to read the rows after it.
+ */
+public record HistoryCursor(LocalDateTime createdAt, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a token from {@link #encode()}; throws {@link IllegalArgumentException} on anything else. */
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.strip()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid history cursor.");
+            }
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid history cursor.", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aiarticlesummarizer.api.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an asynchronous summarization job. {@code result} is set once the job has succeeded,
+ * {@code error} once it has failed.
+ */
+public class JobResponse {
+
+    private Long id;
+    private String status; // "queued", "running", "succeeded" or "failed"
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private SummarizeResponse result;
+    private String error;
+
+    public JobResponse() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public SummarizeResponse getResult() {
+        return result;
+    }
+
+    public void setResult(SummarizeResponse result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
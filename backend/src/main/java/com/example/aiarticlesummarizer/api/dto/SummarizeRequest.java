@@ -12,7 +12,7 @@ public class SummarizeRequest {
     @Size(max = 2048)
     private String url; // Optional if content is provided
 
-    @Pattern(regexp = "^(short|medium|long)$", message = "targetLength must be one of: short, medium, long")
+    @Pattern(regexp = "^(instant|short|medium|long)$", message = "targetLength must be one of: instant, short, medium, long")
     private String targetLength; // Restricted to enum values to prevent prompt injection
 
     public String getContent() {
@@ -11,8 +11,10 @@ public class SummaryHistoryItem {
     private String targetLength;
     private String model;
     private Long latencyMs;
+    private String status;
     private LocalDateTime createdAt;
     private String preview; // First 200 chars of original content
+    private String snippet; // Search results only: HTML-escaped passage with <mark>ed matches
 
     public SummaryHistoryItem() {
     }
@@ -73,6 +75,14 @@ public class SummaryHistoryItem {
         this.latencyMs = latencyMs;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -88,4 +98,12 @@ public class SummaryHistoryItem {
     public void setPreview(String preview) {
         this.preview = preview;
     }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
 }
@@ -5,6 +5,8 @@ package com.example.aiarticlesummarizer.api.dto;
  * Prevents prompt injection attacks by restricting input to predefined values.
  */
 public enum TargetLength {
+    /** Extractive summary built in-process without the model. */
+    INSTANT("instant"),
     SHORT("short"),
     MEDIUM("medium"),
     LONG("long");
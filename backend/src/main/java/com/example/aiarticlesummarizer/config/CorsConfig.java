@@ -37,6 +37,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins(origins.toArray(new String[0]))
                 .allowedMethods(methods.toArray(new String[0]))
                 .allowedHeaders("*")
+                .exposedHeaders("X-Total-Count", "X-Next-Cursor")
                 .allowCredentials(true);
     }
 }
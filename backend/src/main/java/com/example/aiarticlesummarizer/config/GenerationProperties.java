@@ -0,0 +1,99 @@
+package com.example.aiarticlesummarizer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generation budget per target length ({@code app.generation}). Each profile bounds the output
+ * ({@code num_predict}) and sets sampling; {@code num_ctx} is sized to the actual prompt and
+ * rounded up to one of {@code context-buckets}, since Ollama reloads a model whenever its context
+ * size changes.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.generation")
+public class GenerationProperties {
+
+    private boolean enabled = true;
+
+    /** Allowed {@code num_ctx} values, ascending; the model's own window is the upper bound. */
+    private List<Integer> contextBuckets = new ArrayList<>(List.of(2048, 4096, 8192));
+
+    /** Tokens added to the prompt estimate for the chat template and role markers. */
+    private int templateTokens = 64;
+
+    /** Profiles keyed by target length, plus {@code map} for map-reduce chunk notes. */
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    public static class Profile {
+
+        /** Maximum generated tokens ({@code num_predict}); 0 = model default (unbounded). */
+        private int maxTokens;
+
+        /** Sampling temperature; unset = model default. */
+        private Double temperature;
+
+        /** Stop sequences; generation ends at the first one produced. */
+        private List<String> stop = new ArrayList<>();
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public Double getTemperature() {
+            return temperature;
+        }
+
+        public void setTemperature(Double temperature) {
+            this.temperature = temperature;
+        }
+
+        public List<String> getStop() {
+            return stop;
+        }
+
+        public void setStop(List<String> stop) {
+            this.stop = stop;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Integer> getContextBuckets() {
+        return contextBuckets;
+    }
+
+    public void setContextBuckets(List<Integer> contextBuckets) {
+        this.contextBuckets = contextBuckets;
+    }
+
+    public int getTemplateTokens() {
+        return templateTokens;
+    }
+
+    public void setTemplateTokens(int templateTokens) {
+        this.templateTokens = templateTokens;
+    }
+
+    public Map<String, Profile> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(Map<String, Profile> profiles) {
+        this.profiles = profiles;
+    }
+}
@@ -1,15 +1,29 @@
 package com.example.aiarticlesummarizer.config;
 
+import com.example.aiarticlesummarizer.llm.AdaptiveConcurrencyLimiter;
+import com.example.aiarticlesummarizer.llm.AdmissionControlledChatModel;
+import com.example.aiarticlesummarizer.llm.ExtractiveChatModel;
+import com.example.aiarticlesummarizer.llm.OllamaEndpointPool;
+import com.example.aiarticlesummarizer.llm.ModelResidencyManager;
+import com.example.aiarticlesummarizer.llm.PooledOllamaChatModel;
+import com.example.aiarticlesummarizer.llm.ResilientChatModel;
+import com.example.aiarticlesummarizer.service.InstantSummarizer;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.ai.ollama.api.OllamaApi;
 import org.springframework.ai.ollama.api.OllamaChatOptions;
 import org.springframework.ai.ollama.management.ModelManagementOptions;
+import org.springframework.ai.retry.RetryUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class OllamaConfig {
@@ -20,24 +34,100 @@ public class OllamaConfig {
     @Value("${spring.ai.ollama.chat.options.model:llama3}")
     private String model;
 
+    @Value("${app.admission.enabled:true}")
+    private boolean admissionEnabled;
+
+    /** Comma-separated Ollama base URLs; empty means the single {@code spring.ai.ollama.base-url}. */
+    @Value("${app.ollama.endpoints:}")
+    private String endpoints;
+
+    @Value("${app.ollama.health-check-interval-ms:10000}")
+    private long healthCheckIntervalMs;
+
+    @Value("${app.ollama.health-check-timeout-ms:5000}")
+    private long healthCheckTimeoutMs;
+
+    @Value("${app.ollama.failure-threshold:2}")
+    private int failureThreshold;
+
+    @Value("${app.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+
     @Bean
-    public ChatModel chatModel() {
-        // Create OllamaApi
-        OllamaApi ollamaApi = OllamaApi.builder()
-                .baseUrl(baseUrl)
-                .build();
-        
+    public ResilientChatModel.Settings resilienceSettings(
+            @Value("${app.resilience.fallback-chain:instant}") String fallbackChain,
+            @Value("${app.resilience.call-timeout-ms:300000}") long callTimeoutMs,
+            @Value("${app.resilience.stream-idle-timeout-ms:60000}") long streamIdleTimeoutMs,
+            @Value("${app.resilience.breaker.window:20}") int breakerWindow,
+            @Value("${app.resilience.breaker.minimum-calls:5}") int breakerMinimumCalls,
+            @Value("${app.resilience.breaker.failure-rate:0.5}") double breakerFailureRate,
+            @Value("${app.resilience.breaker.open-ms:30000}") long breakerOpenMs,
+            @Value("${app.resilience.breaker.half-open-calls:2}") int breakerHalfOpenCalls,
+            @Value("${app.resilience.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${app.resilience.hedge.model:}") String hedgeModel,
+            @Value("${app.resilience.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${app.resilience.hedge.min-samples:20}") int hedgeMinSamples,
+            @Value("${app.resilience.hedge.min-delay-ms:2000}") long hedgeMinDelayMs,
+            @Value("${app.resilience.hedge.budget:0.1}") double hedgeBudget) {
+        return new ResilientChatModel.Settings(ResilientChatModel.Settings.parseChain(fallbackChain),
+                Duration.ofMillis(callTimeoutMs), Duration.ofMillis(streamIdleTimeoutMs),
+                breakerWindow, breakerMinimumCalls, breakerFailureRate, breakerOpenMs, breakerHalfOpenCalls,
+                hedgeEnabled, hedgeModel, hedgePercentile, hedgeMinSamples, hedgeMinDelayMs, hedgeBudget);
+    }
+
+    @Bean(destroyMethod = "close")
+    public OllamaEndpointPool ollamaEndpointPool(MeterRegistry meterRegistry) {
+        List<String> baseUrls = Arrays.stream(endpoints.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        if (baseUrls.isEmpty()) {
+            baseUrls = List.of(baseUrl);
+        }
+
         // Create OllamaChatOptions with the model
         OllamaChatOptions options = OllamaChatOptions.builder()
                 .model(model)
                 .build();
-        
+
         // Create required dependencies
         ToolCallingManager toolCallingManager = ToolCallingManager.builder().build();
         ObservationRegistry observationRegistry = ObservationRegistry.create();
         ModelManagementOptions modelManagementOptions = ModelManagementOptions.builder().build();
-        
-        // Create and return OllamaChatModel
-        return new OllamaChatModel(ollamaApi, options, toolCallingManager, observationRegistry, modelManagementOptions);
+
+        // Spring AI retries failed calls up to 10 times with backoff; the resilience layer handles
+        // failures itself (breaker, fallback), so retrying underneath only hides a dead backend
+        RetryTemplate retryTemplate = resilienceEnabled
+                ? RetryTemplate.builder().maxAttempts(1).build()
+                : RetryUtils.DEFAULT_RETRY_TEMPLATE;
+
+        return new OllamaEndpointPool(baseUrls,
+                (url, api) -> OllamaChatModel.builder()
+                        .ollamaApi(api)
+                        .defaultOptions(options)
+                        .toolCallingManager(toolCallingManager)
+                        .observationRegistry(observationRegistry)
+                        .modelManagementOptions(modelManagementOptions)
+                        .retryTemplate(retryTemplate)
+                        .build(),
+                meterRegistry, healthCheckIntervalMs, healthCheckTimeoutMs, failureThreshold);
+    }
+
+    @Bean
+    public ChatModel chatModel(OllamaEndpointPool pool, ModelResidencyManager residency, AdaptiveConcurrencyLimiter limiter,
+                               MeterRegistry meterRegistry, ResilientChatModel.Settings resilienceSettings,
+                               InstantSummarizer instantSummarizer) {
+        // Least-outstanding-requests routing over the Ollama hosts, weighted by observed tokens/sec;
+        // keep_alive per call from the model's recent traffic
+        ChatModel chatModel = new PooledOllamaChatModel(pool, residency, meterRegistry);
+
+        // Circuit breakers, hedged blocking calls and the fallback chain (ending in the instant summarizer)
+        if (resilienceEnabled) {
+            ExtractiveChatModel extractive = new ExtractiveChatModel(InstantSummarizer.ENGINE, instantSummarizer::fallback);
+            chatModel = new ResilientChatModel(chatModel, extractive, meterRegistry, resilienceSettings);
+        }
+
+        // Admission control: adaptive concurrency limit + bounded wait queue in front of Ollama
+        return admissionEnabled ? new AdmissionControlledChatModel(chatModel, limiter) : chatModel;
     }
 }
@@ -0,0 +1,94 @@
+package com.example.aiarticlesummarizer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model routing policy ({@code app.routing}). Routes are evaluated in order and the first one whose
+ * conditions all hold serves the request; requests no route matches use the default model
+ * ({@code spring.ai.ollama.chat.options.model}).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.routing")
+public class RoutingProperties {
+
+    private boolean enabled = true;
+
+    private List<Route> routes = new ArrayList<>();
+
+    public static class Route {
+
+        private String name;
+
+        /** Ollama model tag; routes with an empty model are ignored. */
+        private String model;
+
+        /** Matches only if the estimated input is at most this many tokens (0 = no limit). */
+        private int maxInputTokens;
+
+        /** Matches only these target lengths (empty = all). */
+        private List<String> targetLengths = new ArrayList<>();
+
+        /** Matches only while the estimated admission queue wait is at least this long (0 = always). */
+        private double minEstimatedWaitSeconds;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public int getMaxInputTokens() {
+            return maxInputTokens;
+        }
+
+        public void setMaxInputTokens(int maxInputTokens) {
+            this.maxInputTokens = maxInputTokens;
+        }
+
+        public List<String> getTargetLengths() {
+            return targetLengths;
+        }
+
+        public void setTargetLengths(List<String> targetLengths) {
+            this.targetLengths = targetLengths;
+        }
+
+        public double getMinEstimatedWaitSeconds() {
+            return minEstimatedWaitSeconds;
+        }
+
+        public void setMinEstimatedWaitSeconds(double minEstimatedWaitSeconds) {
+            this.minEstimatedWaitSeconds = minEstimatedWaitSeconds;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+}
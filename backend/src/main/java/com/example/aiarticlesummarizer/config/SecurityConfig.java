@@ -1,6 +1,7 @@
 package com.example.aiarticlesummarizer.config;
 
 import com.example.aiarticlesummarizer.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -31,12 +32,16 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async re-dispatches of streamed responses (e.g. NDJSON batch results) were
+                        // already authorized on the initial request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         // Allow streaming endpoint without auth to avoid async dispatch security issues
                         // (other API endpoints, including history and admin, still require JWT)
-                        .requestMatchers(HttpMethod.POST, "/api/v1/summarize/stream").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/summarize/stream", "/api/v2/summarize/stream").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/summarize/stream").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll())
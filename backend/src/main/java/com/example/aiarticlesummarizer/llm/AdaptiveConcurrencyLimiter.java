@@ -0,0 +1,278 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Admission control for model calls with an AIMD concurrency limit driven by observed latency.
+ * <p>
+ * While latency stays within {@code latency-tolerance} times the baseline (a slow moving average),
+ * the limit grows by {@code 1/limit} per completed call. When latency rises past that, or calls fail,
+ * it is multiplied by {@code backoff-ratio}, at most once per recent round-trip. Callers over the
+ * limit wait in a bounded {@link FairWaitQueue} with a deadline: interactive before standard before
+ * background (with aging), and a weighted fair share per user within a class. A full queue or an
+ * expired deadline is rejected with {@link OverloadedException} carrying an estimated
+ * {@code Retry-After}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double DEFAULT_RTT_SECONDS = 10.0;
+
+    /** A granted slot; must be released exactly once. */
+    public final class Permit {
+        private final long acquiredNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release(boolean success) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(System.nanoTime() - acquiredNanos, success);
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final FairWaitQueue<CompletableFuture<Permit>> queue;
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Map<String, Double> userWeights;
+    private final MeterRegistry meterRegistry;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final Duration maxQueueWait;
+    private final Duration backgroundMaxQueueWait;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private double recentNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${app.admission.initial-limit:4}") int initialLimit,
+                                      @Value("${app.admission.min-limit:1}") int minLimit,
+                                      @Value("${app.admission.max-limit:32}") int maxLimit,
+                                      @Value("${app.admission.queue-capacity:100}") int queueCapacity,
+                                      @Value("${app.admission.max-queue-wait-ms:60000}") long maxQueueWaitMs,
+                                      @Value("${app.admission.latency-tolerance:2.0}") double latencyTolerance,
+                                      @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${app.scheduler.aging-step-ms:10000}") long agingStepMs,
+                                      @Value("${app.scheduler.background-max-queue-wait-ms:600000}") long backgroundMaxQueueWaitMs,
+                                      @Value("${app.scheduler.user-weights:}") String userWeights) {
+        this.meterRegistry = meterRegistry;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWait = Duration.ofMillis(maxQueueWaitMs);
+        this.backgroundMaxQueueWait = Duration.ofMillis(backgroundMaxQueueWaitMs);
+        this.queue = new FairWaitQueue<>(TimeUnit.MILLISECONDS.toNanos(agingStepMs));
+        this.userWeights = parseWeights(userWeights);
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+
+        Gauge.builder("summarizer.admission.limit", this, l -> l.snapshot(() -> l.limit))
+                .description("Current adaptive concurrency limit for model calls")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.admission.inflight", this, l -> l.snapshot(() -> l.inFlight))
+                .description("Model calls currently holding a permit")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("summarizer.admission.queue.depth", this, l -> l.snapshot(() -> l.queue.size(priority)))
+                    .description("Model calls waiting for a permit")
+                    .tag("priority", priority.tag())
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("summarizer.scheduler.wait")
+                    .description("Time model calls spent queued before admission")
+                    .tag("priority", priority.tag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("summarizer.admission.estimated.wait", this, AdaptiveConcurrencyLimiter::estimatedWaitSeconds)
+                .description("Estimated queue wait for a new model call")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until a permit is granted for the given caller or its queue deadline passes.
+     */
+    public Permit acquire(SchedulingContext context) {
+        CompletableFuture<Permit> pending = enqueue(context);
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model capacity", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+
+    /**
+     * Non-blocking variant for reactive callers. Cancelling the returned Mono leaves the queue.
+     */
+    public Mono<Permit> acquireAsync(SchedulingContext context) {
+        return Mono.defer(() -> Mono.fromFuture(enqueue(context), false))
+                .onErrorMap(TimeoutException.class, this::translate);
+    }
+
+    /**
+     * Estimated time a newly queued call would wait, from queue depth, limit and recent latency.
+     */
+    public double estimatedWaitSeconds() {
+        synchronized (lock) {
+            return estimatedWaitSecondsLocked();
+        }
+    }
+
+    private CompletableFuture<Permit> enqueue(SchedulingContext context) {
+        CompletableFuture<Permit> waiter;
+        Priority priority = context.priority();
+        synchronized (lock) {
+            if (inFlight < (int) limit && queue.isEmpty()) {
+                inFlight++;
+                waitTimers.get(priority).record(0, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            // Background work may use at most half the queue so it cannot crowd out interactive callers
+            boolean full = queue.size() >= queueCapacity
+                    || (priority == Priority.BACKGROUND && queue.size(Priority.BACKGROUND) >= queueCapacity / 2);
+            if (full) {
+                meterRegistry.counter("summarizer.admission.rejected",
+                        "reason", "queue_full", "priority", priority.tag()).increment();
+                throw new OverloadedException("Summarization capacity exhausted. Please retry shortly.",
+                        (long) Math.ceil(estimatedWaitSecondsLocked()));
+            }
+            waiter = new CompletableFuture<>();
+            queue.add(waiter, context, userWeights.getOrDefault(context.user(), 1.0), System.nanoTime());
+        }
+        Duration maxWait = priority == Priority.BACKGROUND ? backgroundMaxQueueWait : maxQueueWait;
+        waiter.orTimeout(maxWait.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((permit, error) -> {
+                    if (error != null) {
+                        synchronized (lock) {
+                            queue.remove(waiter);
+                        }
+                    }
+                });
+        return waiter;
+    }
+
+    private void onRelease(long rttNanos, boolean success) {
+        synchronized (lock) {
+            inFlight--;
+            adjustLimit(rttNanos, success);
+        }
+        dispatch();
+    }
+
+    private void adjustLimit(long rttNanos, boolean success) {
+        long now = System.nanoTime();
+        recentNanos = recentNanos == 0 ? rttNanos : recentNanos + 0.3 * (rttNanos - recentNanos);
+        baselineNanos = baselineNanos == 0 ? rttNanos : baselineNanos + 0.02 * (rttNanos - baselineNanos);
+
+        boolean congested = !success || recentNanos > latencyTolerance * baselineNanos;
+        if (congested) {
+            if (now - lastDecreaseNanos > recentNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight + 1 >= (int) limit || !queue.isEmpty()) {
+            // Only grow while the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Hands free permits to queued waiters. Futures are completed outside the lock because their
+     * dependents (e.g. a subscribed stream) run synchronously on completion.
+     */
+    private void dispatch() {
+        while (true) {
+            List<CompletableFuture<Permit>> granted = new ArrayList<>();
+            synchronized (lock) {
+                long now = System.nanoTime();
+                while (inFlight < (int) limit && !queue.isEmpty()) {
+                    FairWaitQueue.Entry<CompletableFuture<Permit>> next = queue.poll(now);
+                    waitTimers.get(next.priority).record(now - next.enqueuedNanos, TimeUnit.NANOSECONDS);
+                    granted.add(next.item);
+                    inFlight++;
+                }
+            }
+            if (granted.isEmpty()) {
+                return;
+            }
+            int unused = 0;
+            for (CompletableFuture<Permit> waiter : granted) {
+                if (!waiter.complete(new Permit())) {
+                    unused++; // timed out or cancelled meanwhile
+                }
+            }
+            if (unused == 0) {
+                return;
+            }
+            synchronized (lock) {
+                inFlight -= unused;
+            }
+        }
+    }
+
+    private double estimatedWaitSecondsLocked() {
+        double rttSeconds = recentNanos > 0 ? recentNanos / 1e9 : DEFAULT_RTT_SECONDS;
+        return (queue.size() + 1) * rttSeconds / Math.max(1.0, limit);
+    }
+
+    private RuntimeException translate(Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            meterRegistry.counter("summarizer.admission.rejected", "reason", "deadline").increment();
+            return new OverloadedException("Timed out waiting for summarization capacity. Please retry shortly.",
+                    (long) Math.ceil(estimatedWaitSeconds()));
+        }
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /** Parses {@code "alice=2,batch-user=0.5"} into per-user fair-share weights (default 1). */
+    private static Map<String, Double> parseWeights(String spec) {
+        Map<String, Double> weights = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return weights;
+        }
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.split("=", 2);
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                weights.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+        return weights;
+    }
+
+    private double snapshot(DoubleSupplier value) {
+        synchronized (lock) {
+            return value.getAsDouble();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ChatModel} decorator that admits calls through an {@link AdaptiveConcurrencyLimiter}, using
+ * the caller's {@link SchedulingContext} for priority and fair-share accounting.
+ * Blocking calls hold a permit for the round-trip; streams hold one from subscription until the
+ * stream terminates or is cancelled.
+ */
+public class AdmissionControlledChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdmissionControlledChatModel(ChatModel delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(SchedulingContext.current());
+        boolean success = false;
+        try {
+            ChatResponse response = delegate.call(prompt);
+            success = true;
+            return response;
+        } finally {
+            permit.release(success);
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // Captured at assembly: the stream may be subscribed on a thread without the caller's context
+        SchedulingContext context = SchedulingContext.current();
+        return Flux.usingWhen(
+                limiter.acquireAsync(context),
+                permit -> delegate.stream(prompt),
+                permit -> Mono.fromRunnable(() -> permit.release(true)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(false)),
+                permit -> Mono.fromRunnable(() -> permit.release(true)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Count-based circuit breaker for one model. Opens when the failure rate over the last
+ * {@code windowSize} calls reaches the threshold (after at least {@code minimumCalls}), rejects calls
+ * while open, then lets a few trial calls through; their outcome closes or re-opens it.
+ */
+final class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int gaugeValue;
+
+        State(int gaugeValue) {
+            this.gaugeValue = gaugeValue;
+        }
+    }
+
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    CircuitBreaker(String name, MeterRegistry meterRegistry, int windowSize, int minimumCalls,
+                   double failureRateThreshold, long openMillis, int halfOpenCalls) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+
+        Gauge.builder("summarizer.breaker.state", this, b -> b.state().gaugeValue)
+                .description("Circuit breaker state per model: 0 closed, 1 half-open, 2 open")
+                .tag("model", name)
+                .register(meterRegistry);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /** Whether a call may proceed now; every permitted call must report its outcome. */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialsStarted < halfOpenCalls) {
+                    trialsStarted++;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        meterRegistry.counter("summarizer.breaker.rejected", "model", name).increment();
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (double) failures / recorded >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /** For a permitted call that ended without an outcome (e.g. cancelled before any output). */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) {
+            trialsStarted--;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[position] = failed;
+        if (failed) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void transition(State next) {
+        logger.warn("Circuit breaker model={} {} -> {} failures={}/{}", name, state, next, failures, recorded);
+        state = next;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (next == State.CLOSED) {
+            position = 0;
+            recorded = 0;
+            failures = 0;
+        }
+        meterRegistry.counter("summarizer.breaker.transitions", "model", name,
+                "state", next.name().toLowerCase()).increment();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last resort in the fallback chain: answers without any LLM by handing the article (the user
+ * message) to the in-process extractive {@link Engine}, the same one that serves the {@code instant}
+ * target length. The response carries the engine's name, so with the fallback route it is recorded
+ * as e.g. {@code "instant (fallback)"}. The target length comes from the system message metadata
+ * set by {@link #systemMessage}.
+ */
+public class ExtractiveChatModel implements ChatModel {
+
+    /** System message metadata key holding the requested target length. */
+    public static final String TARGET_LENGTH_KEY = "summarizer-target-length";
+
+    /** Chain entry accepted for configurations written before the engines were merged. */
+    private static final String LEGACY_NAME = "extractive";
+
+    private static final String DEFAULT_TARGET_LENGTH = "medium";
+
+    /** Summarizes an article to a target length in-process. */
+    @FunctionalInterface
+    public interface Engine {
+        String summarize(String article, String targetLength);
+    }
+
+    private final String name;
+    private final Engine engine;
+
+    public ExtractiveChatModel(String name, Engine engine) {
+        this.name = name;
+        this.engine = engine;
+    }
+
+    /** The system message of a summary prompt, tagged with its target length for this fallback. */
+    public static SystemMessage systemMessage(String text, String targetLength) {
+        return SystemMessage.builder().text(text).metadata(Map.of(TARGET_LENGTH_KEY, targetLength)).build();
+    }
+
+    /** Whether a fallback chain entry names this engine. */
+    public boolean handles(String model) {
+        return name.equalsIgnoreCase(model) || LEGACY_NAME.equalsIgnoreCase(model);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String summary = engine.summarize(userText(prompt), targetLength(prompt.getSystemMessage()));
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(summary))),
+                ChatResponseMetadata.builder().model(name).build());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> Flux.just(call(prompt)));
+    }
+
+    private static String userText(Prompt prompt) {
+        StringBuilder text = new StringBuilder();
+        for (UserMessage message : prompt.getUserMessages()) {
+            if (message.getText() != null) {
+                text.append(message.getText()).append('\n');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    private static String targetLength(SystemMessage system) {
+        Object targetLength = system != null ? system.getMetadata().get(TARGET_LENGTH_KEY) : null;
+        return targetLength instanceof String value ? value : DEFAULT_TARGET_LENGTH;
+    }
+}
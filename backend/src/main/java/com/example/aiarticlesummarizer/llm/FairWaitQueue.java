@@ -0,0 +1,115 @@
+package com.example.aiarticlesummarizer.llm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wait queue ordered by priority class (with aging), then by per-user weighted fair queuing.
+ * <p>
+ * Each user has a virtual finish time that advances by {@code 1/weight} per queued call, starting
+ * from the later of the global virtual clock and the user's previous finish. Among waiters of the
+ * same effective class the smallest finish time is served first, so a user with many queued calls
+ * gets one slot per round rather than all of them. A waiter is promoted one class per
+ * {@code agingStepNanos} spent waiting. Not thread-safe; guarded by the limiter's lock.
+ */
+final class FairWaitQueue<T> {
+
+    private static final int MAX_IDLE_USERS = 1024;
+
+    static final class Entry<T> {
+        final T item;
+        final Priority priority;
+        final String user;
+        final long enqueuedNanos;
+        final double virtualStart;
+        final double virtualFinish;
+
+        private Entry(T item, Priority priority, String user, long enqueuedNanos,
+                      double virtualStart, double virtualFinish) {
+            this.item = item;
+            this.priority = priority;
+            this.user = user;
+            this.enqueuedNanos = enqueuedNanos;
+            this.virtualStart = virtualStart;
+            this.virtualFinish = virtualFinish;
+        }
+    }
+
+    private final List<Entry<T>> entries = new ArrayList<>();
+    private final Map<String, Double> lastFinishByUser = new HashMap<>();
+    private final int[] countByPriority = new int[Priority.values().length];
+    private final long agingStepNanos;
+    private double virtualClock;
+
+    FairWaitQueue(long agingStepNanos) {
+        this.agingStepNanos = Math.max(1, agingStepNanos);
+    }
+
+    void add(T item, SchedulingContext context, double weight, long nowNanos) {
+        double start = Math.max(virtualClock, lastFinishByUser.getOrDefault(context.user(), 0.0));
+        double finish = start + 1.0 / Math.max(0.01, weight);
+        lastFinishByUser.put(context.user(), finish);
+        entries.add(new Entry<>(item, context.priority(), context.user(), nowNanos, start, finish));
+        countByPriority[context.priority().ordinal()]++;
+    }
+
+    /**
+     * Removes and returns the waiter to serve next, or {@code null} if empty.
+     */
+    Entry<T> poll(long nowNanos) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        int bestIndex = 0;
+        long bestClass = Long.MAX_VALUE;
+        double bestFinish = Double.MAX_VALUE;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry<T> entry = entries.get(i);
+            long effectiveClass = Math.max(0, entry.priority.getRank() - (nowNanos - entry.enqueuedNanos) / agingStepNanos);
+            if (effectiveClass < bestClass || (effectiveClass == bestClass && entry.virtualFinish < bestFinish)) {
+                bestIndex = i;
+                bestClass = effectiveClass;
+                bestFinish = entry.virtualFinish;
+            }
+        }
+        Entry<T> chosen = entries.remove(bestIndex);
+        countByPriority[chosen.priority.ordinal()]--;
+        virtualClock = Math.max(virtualClock, chosen.virtualStart);
+        pruneIdleUsers();
+        return chosen;
+    }
+
+    boolean remove(T item) {
+        Iterator<Entry<T>> it = entries.iterator();
+        while (it.hasNext()) {
+            Entry<T> entry = it.next();
+            if (entry.item == item) {
+                it.remove();
+                countByPriority[entry.priority.ordinal()]--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int size(Priority priority) {
+        return countByPriority[priority.ordinal()];
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private void pruneIdleUsers() {
+        if (lastFinishByUser.size() > MAX_IDLE_USERS) {
+            lastFinishByUser.values().removeIf(finish -> finish <= virtualClock);
+        }
+    }
+}
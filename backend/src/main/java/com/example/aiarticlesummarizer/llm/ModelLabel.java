@@ -0,0 +1,48 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.springframework.ai.chat.model.ChatResponse;
+
+/**
+ * How a response was served, carried in its metadata under {@link #ROUTE_KEY}: by the requested
+ * model, by a hedged duplicate, or by a fallback. Used to record the real model on a summary and to
+ * keep degraded answers out of the cache.
+ */
+public final class ModelLabel {
+
+    public static final String ROUTE_KEY = "summarizer-route";
+    public static final String ROUTE_PRIMARY = "primary";
+    public static final String ROUTE_HEDGE = "hedge";
+    public static final String ROUTE_FALLBACK = "fallback";
+
+    private static final int MAX_LENGTH = 50; // Summary.model column
+
+    private ModelLabel() {
+    }
+
+    static ChatResponse withRoute(ChatResponse response, String route) {
+        return ChatResponse.builder().from(response).metadata(ROUTE_KEY, route).build();
+    }
+
+    /**
+     * Label to persist as {@code Summary.model}, e.g. {@code "llama3"}, {@code "llama3 (hedge)"} or
+     * {@code "instant (fallback)"}.
+     */
+    public static String of(ChatResponse response, String requestedModel) {
+        String model = requestedModel;
+        String route = null;
+        if (response != null && response.getMetadata() != null) {
+            if (response.getMetadata().getModel() != null && !response.getMetadata().getModel().isBlank()) {
+                model = response.getMetadata().getModel();
+            }
+            route = response.getMetadata().get(ROUTE_KEY);
+        }
+        String label = route == null || ROUTE_PRIMARY.equals(route) ? model : model + " (" + route + ")";
+        return label.length() > MAX_LENGTH ? label.substring(0, MAX_LENGTH) : label;
+    }
+
+    /** True when the answer came from a fallback rather than the requested model. */
+    public static boolean isDegraded(ChatResponse response) {
+        return response != null && response.getMetadata() != null
+                && ROUTE_FALLBACK.equals(response.getMetadata().get(ROUTE_KEY));
+    }
+}
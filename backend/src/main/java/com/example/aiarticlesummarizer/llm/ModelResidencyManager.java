@@ -0,0 +1,302 @@
+package com.example.aiarticlesummarizer.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the models we serve loaded in Ollama, and only those that earn their memory.
+ * <p>
+ * At startup every configured model is loaded on every endpoint; until that finishes (or
+ * {@code warm-up-timeout-ms} passes) this health indicator reports {@code OUT_OF_SERVICE}, which
+ * keeps the readiness probe down so no traffic reaches a cold instance. Each call then gets a
+ * {@code keep_alive} from the model's recent traffic: models with at least {@code hot-requests}
+ * calls per {@code traffic-window-ms} stay loaded for {@code keep-alive}, others only for
+ * {@code idle-keep-alive}. When an endpoint holds more than {@code max-loaded-models} or
+ * {@code max-loaded-bytes} (read from {@code /api/ps}), our idle models are unloaded least recently
+ * used first; the most recently used one is never unloaded.
+ */
+@Component("modelResidency")
+public class ModelResidencyManager implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelResidencyManager.class);
+
+    /** Subset of Ollama's {@code /api/ps} response. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record RunningModels(List<RunningModel> models) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record RunningModel(String model, long size, @JsonProperty("size_vram") long sizeVram) {}
+
+    /** Recent traffic of one model, as an exponentially decayed call count. */
+    private static final class Traffic {
+        private double calls;
+        private long updatedNanos = System.nanoTime();
+
+        synchronized double add(double amount, double windowNanos) {
+            long now = System.nanoTime();
+            calls = calls * Math.exp(-(now - updatedNanos) / windowNanos) + amount;
+            updatedNanos = now;
+            return calls;
+        }
+    }
+
+    /** A model on one endpoint: calls in flight and when it was last used there. */
+    private static final class Residency {
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile long lastUsedMillis;
+    }
+
+    private final OllamaEndpointPool pool;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Traffic> traffic = new ConcurrentHashMap<>();
+    private final Map<OllamaEndpoint, Map<String, Residency>> residency = new ConcurrentHashMap<>();
+    private final Map<OllamaEndpoint, List<RunningModel>> loaded = new ConcurrentHashMap<>();
+    private final Map<OllamaEndpoint, RestClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, String> warmUpFailures = new ConcurrentHashMap<>();
+    private final boolean warmUpEnabled;
+    private final long warmUpTimeoutMs;
+    private final String keepAlive;
+    private final String idleKeepAlive;
+    private final double hotRequests;
+    private final double trafficWindowNanos;
+    private final int maxLoadedModels;
+    private final long maxLoadedBytes;
+
+    private volatile boolean warm;
+    private volatile List<String> managedModels = List.of();
+
+    public ModelResidencyManager(OllamaEndpointPool pool,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.residency.warm-up:true}") boolean warmUpEnabled,
+                                 @Value("${app.residency.warm-up-timeout-ms:180000}") long warmUpTimeoutMs,
+                                 @Value("${app.residency.keep-alive:30m}") String keepAlive,
+                                 @Value("${app.residency.idle-keep-alive:5m}") String idleKeepAlive,
+                                 @Value("${app.residency.hot-requests:3}") double hotRequests,
+                                 @Value("${app.residency.traffic-window-ms:600000}") long trafficWindowMs,
+                                 @Value("${app.residency.max-loaded-models:0}") int maxLoadedModels,
+                                 @Value("${app.residency.max-loaded-bytes:0}") long maxLoadedBytes) {
+        this.pool = pool;
+        this.meterRegistry = meterRegistry;
+        this.warmUpEnabled = warmUpEnabled;
+        this.warmUpTimeoutMs = warmUpTimeoutMs;
+        this.keepAlive = keepAlive;
+        this.idleKeepAlive = idleKeepAlive;
+        this.hotRequests = hotRequests;
+        this.trafficWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1000, trafficWindowMs));
+        this.maxLoadedModels = maxLoadedModels;
+        this.maxLoadedBytes = maxLoadedBytes;
+
+        Gauge.builder("summarizer.residency.warm", this, m -> m.warm ? 1 : 0)
+                .description("1 once startup model warm-up has finished")
+                .register(meterRegistry);
+        for (OllamaEndpoint endpoint : pool.endpoints()) {
+            Gauge.builder("summarizer.residency.loaded.models", loaded, l -> l.getOrDefault(endpoint, List.of()).size())
+                    .description("Models loaded on the Ollama endpoint at the last check")
+                    .tag("endpoint", endpoint.getBaseUrl())
+                    .register(meterRegistry);
+            Gauge.builder("summarizer.residency.loaded.bytes", loaded, l -> totalBytes(l.getOrDefault(endpoint, List.of())))
+                    .description("Memory held by loaded models on the Ollama endpoint at the last check")
+                    .tag("endpoint", endpoint.getBaseUrl())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Loads the given models on every endpoint and marks the instance ready once all attempts have
+     * finished. An empty list (or warm-up disabled) marks it ready immediately.
+     */
+    public void warmUp(List<String> models) {
+        managedModels = List.copyOf(models);
+        if (!warmUpEnabled || models.isEmpty()) {
+            warm = true;
+            return;
+        }
+        long started = System.currentTimeMillis();
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        for (String model : models) {
+            for (OllamaEndpoint endpoint : pool.endpoints()) {
+                loads.add(CompletableFuture.runAsync(() -> {
+                    long start = System.currentTimeMillis();
+                    load(endpoint, model, keepAlive);
+                    touch(endpoint, model);
+                    logger.info("Model warmed up model={} endpoint={} latencyMs={}",
+                            model, endpoint.getBaseUrl(), System.currentTimeMillis() - start);
+                }).exceptionally(error -> {
+                    warmUpFailures.put(model + "@" + endpoint.getBaseUrl(), String.valueOf(error.getMessage()));
+                    logger.warn("Model warm-up failed model={} endpoint={} message={}",
+                            model, endpoint.getBaseUrl(), error.getMessage());
+                    return null;
+                }));
+            }
+        }
+        CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new))
+                .orTimeout(warmUpTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> {
+                    warm = true;
+                    logger.info("Model warm-up finished models={} endpoints={} failures={} latencyMs={} timedOut={}",
+                            models.size(), pool.endpoints().size(), warmUpFailures.size(),
+                            System.currentTimeMillis() - started, error != null);
+                });
+    }
+
+    /**
+     * Called when a call to {@code model} starts on {@code endpoint}. Returns the prompt with the
+     * model's current {@code keep_alive}; {@link #end} must follow.
+     */
+    Prompt begin(OllamaEndpoint endpoint, String model, Prompt prompt) {
+        Residency entry = residency(endpoint, model);
+        entry.inFlight.incrementAndGet();
+        entry.lastUsedMillis = System.currentTimeMillis();
+        double recent = traffic.computeIfAbsent(model, m -> new Traffic()).add(1, trafficWindowNanos);
+        if (!(prompt.getOptions() instanceof OllamaChatOptions options)) {
+            return prompt;
+        }
+        OllamaChatOptions copy = OllamaChatOptions.fromOptions(options);
+        copy.setKeepAlive(recent >= hotRequests ? keepAlive : idleKeepAlive);
+        return new Prompt(prompt.getInstructions(), copy);
+    }
+
+    void end(OllamaEndpoint endpoint, String model) {
+        Residency entry = residency(endpoint, model);
+        entry.inFlight.decrementAndGet();
+        entry.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads what each endpoint has loaded and, over the configured limits, unloads idle models least
+     * recently used first. Models with calls in flight are never unloaded.
+     */
+    @Scheduled(fixedDelayString = "${app.residency.check-interval-ms:30000}",
+            initialDelayString = "${app.residency.check-interval-ms:30000}")
+    public void enforceLimits() {
+        for (OllamaEndpoint endpoint : pool.endpoints()) {
+            if (!endpoint.isHealthy()) {
+                continue;
+            }
+            try {
+                RunningModels running = client(endpoint).get().uri("/api/ps").retrieve().body(RunningModels.class);
+                List<RunningModel> models = running != null && running.models() != null ? running.models() : List.of();
+                loaded.put(endpoint, models);
+                evictOverLimit(endpoint, models);
+            } catch (Exception e) {
+                logger.debug("Residency check failed endpoint={} message={}", endpoint.getBaseUrl(), e.getMessage());
+            }
+        }
+    }
+
+    private void evictOverLimit(OllamaEndpoint endpoint, List<RunningModel> models) {
+        int count = models.size();
+        long bytes = totalBytes(models);
+        if (!overLimit(count, bytes)) {
+            return;
+        }
+        // Only models this instance uses are candidates, and the most recently used one always stays
+        Map<String, Residency> ours = residency.getOrDefault(endpoint, Map.of());
+        List<RunningModel> candidates = new ArrayList<>();
+        for (RunningModel model : models) {
+            if (ours.containsKey(normalize(model.model()))) {
+                candidates.add(model);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(m -> ours.get(normalize(m.model())).lastUsedMillis));
+        for (RunningModel victim : candidates.subList(0, Math.max(0, candidates.size() - 1))) {
+            if (!overLimit(count, bytes)) {
+                return;
+            }
+            if (ours.get(normalize(victim.model())).inFlight.get() > 0) {
+                continue;
+            }
+            try {
+                load(endpoint, victim.model(), "0");
+                count--;
+                bytes -= Math.max(victim.size(), victim.sizeVram());
+                meterRegistry.counter("summarizer.residency.evictions",
+                        "endpoint", endpoint.getBaseUrl(), "model", victim.model()).increment();
+                logger.info("Model unloaded model={} endpoint={} loadedModels={} loadedBytes={}",
+                        victim.model(), endpoint.getBaseUrl(), count, bytes);
+            } catch (Exception e) {
+                logger.warn("Model unload failed model={} endpoint={} message={}",
+                        victim.model(), endpoint.getBaseUrl(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean overLimit(int count, long bytes) {
+        return (maxLoadedModels > 0 && count > maxLoadedModels) || (maxLoadedBytes > 0 && bytes > maxLoadedBytes);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warm ? Health.up() : Health.outOfService();
+        builder.withDetail("warm", warm).withDetail("models", managedModels);
+        if (!warmUpFailures.isEmpty()) {
+            builder.withDetail("warmUpFailures", new LinkedHashMap<>(warmUpFailures));
+        }
+        Map<String, List<String>> loadedModels = new LinkedHashMap<>();
+        loaded.forEach((endpoint, models) ->
+                loadedModels.put(endpoint.getBaseUrl(), models.stream().map(RunningModel::model).toList()));
+        if (!loadedModels.isEmpty()) {
+            builder.withDetail("loaded", loadedModels);
+        }
+        return builder.build();
+    }
+
+    /** An empty chat request only loads (or, with {@code keep_alive} 0, unloads) the model. */
+    private static void load(OllamaEndpoint endpoint, String model, String keepAlive) {
+        endpoint.getApi().chat(OllamaApi.ChatRequest.builder(model)
+                .messages(List.of())
+                .stream(false)
+                .keepAlive(keepAlive)
+                .build());
+    }
+
+    private void touch(OllamaEndpoint endpoint, String model) {
+        residency(endpoint, model).lastUsedMillis = System.currentTimeMillis();
+    }
+
+    private Residency residency(OllamaEndpoint endpoint, String model) {
+        return residency.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>())
+                .computeIfAbsent(normalize(model), m -> new Residency());
+    }
+
+    private RestClient client(OllamaEndpoint endpoint) {
+        return clients.computeIfAbsent(endpoint, e -> RestClient.create(e.getBaseUrl()));
+    }
+
+    /** Ollama reports {@code llama3} as {@code llama3:latest}. */
+    private static String normalize(String model) {
+        return model.indexOf(':') >= 0 ? model : model + ":latest";
+    }
+
+    private static long totalBytes(List<RunningModel> models) {
+        long total = 0;
+        for (RunningModel model : models) {
+            total += Math.max(model.size(), model.sizeVram());
+        }
+        return total;
+    }
+}
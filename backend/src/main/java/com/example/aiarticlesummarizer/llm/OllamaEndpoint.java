@@ -0,0 +1,85 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Ollama host in an {@link OllamaEndpointPool}: its API client and chat model plus the load and
+ * health state used for routing.
+ */
+public final class OllamaEndpoint {
+
+    private static final double THROUGHPUT_SMOOTHING = 0.2;
+
+    private final String baseUrl;
+    private final OllamaApi api;
+    private final ChatModel chatModel;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean healthy = true;
+    private volatile int consecutiveFailures;
+    private volatile double tokensPerSecond; // 0 until the first completed generation
+
+    OllamaEndpoint(String baseUrl, OllamaApi api, ChatModel chatModel) {
+        this.baseUrl = baseUrl;
+        this.api = api;
+        this.chatModel = chatModel;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public OllamaApi getApi() {
+        return api;
+    }
+
+    public ChatModel getChatModel() {
+        return chatModel;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
+    int acquire() {
+        return inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void recordThroughput(double observedTokensPerSecond) {
+        tokensPerSecond = tokensPerSecond == 0
+                ? observedTokensPerSecond
+                : tokensPerSecond + THROUGHPUT_SMOOTHING * (observedTokensPerSecond - tokensPerSecond);
+    }
+
+    /** Returns true if this success brought the endpoint back into rotation. */
+    synchronized boolean markSuccess() {
+        consecutiveFailures = 0;
+        boolean recovered = !healthy;
+        healthy = true;
+        return recovered;
+    }
+
+    /** Returns true if this failure took the endpoint out of rotation. */
+    synchronized boolean markFailure(int threshold) {
+        consecutiveFailures++;
+        if (healthy && consecutiveFailures >= threshold) {
+            healthy = false;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * A set of Ollama hosts serving the same models. Calls are routed to the healthy endpoint with the
+ * lowest expected completion time, {@code (inFlight + 1) / tokensPerSecond}, so faster hosts take
+ * proportionally more work. A background check lists models on every endpoint; endpoints that fail
+ * {@code failure-threshold} checks or calls in a row leave rotation until a check succeeds again.
+ */
+public class OllamaEndpointPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaEndpointPool.class);
+
+    private final List<OllamaEndpoint> endpoints;
+    private final int failureThreshold;
+    private final long healthCheckTimeoutMs;
+    private final ScheduledExecutorService healthScheduler;
+    private final ExecutorService healthCheckers;
+
+    public OllamaEndpointPool(List<String> baseUrls,
+                              BiFunction<String, OllamaApi, ChatModel> chatModelFactory,
+                              MeterRegistry meterRegistry,
+                              long healthCheckIntervalMs,
+                              long healthCheckTimeoutMs,
+                              int failureThreshold) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one Ollama endpoint is required");
+        }
+        List<OllamaEndpoint> created = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            OllamaApi api = OllamaApi.builder().baseUrl(baseUrl).build();
+            OllamaEndpoint endpoint = new OllamaEndpoint(baseUrl, api, chatModelFactory.apply(baseUrl, api));
+            created.add(endpoint);
+
+            Gauge.builder("summarizer.ollama.inflight", endpoint, OllamaEndpoint::getInFlight)
+                    .description("Model calls in flight per Ollama endpoint")
+                    .tag("endpoint", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("summarizer.ollama.healthy", endpoint, e -> e.isHealthy() ? 1 : 0)
+                    .description("1 when the Ollama endpoint is in rotation")
+                    .tag("endpoint", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("summarizer.ollama.tokens.per.second", endpoint, OllamaEndpoint::getTokensPerSecond)
+                    .description("Smoothed generation throughput per Ollama endpoint")
+                    .tag("endpoint", baseUrl)
+                    .register(meterRegistry);
+        }
+        this.endpoints = List.copyOf(created);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.healthCheckTimeoutMs = healthCheckTimeoutMs;
+        this.healthScheduler = Executors.newSingleThreadScheduledExecutor(daemon("ollama-health"));
+        this.healthCheckers = Executors.newCachedThreadPool(daemon("ollama-health-check"));
+        if (healthCheckIntervalMs > 0) {
+            healthScheduler.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        logger.info("Ollama pool endpoints={}", baseUrls);
+    }
+
+    public List<OllamaEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Picks the healthy endpoint with the lowest {@code (inFlight + 1) / tokensPerSecond}. Endpoints
+     * without a throughput sample yet are scored with the pool average so they still get traffic.
+     * When every endpoint is marked unhealthy all of them are considered, rather than failing outright.
+     */
+    public OllamaEndpoint select() {
+        List<OllamaEndpoint> candidates = endpoints.stream().filter(OllamaEndpoint::isHealthy).toList();
+        if (candidates.isEmpty()) {
+            candidates = endpoints;
+        }
+        double fallbackThroughput = candidates.stream()
+                .mapToDouble(OllamaEndpoint::getTokensPerSecond)
+                .filter(tps -> tps > 0)
+                .average()
+                .orElse(1.0);
+
+        // Random start so ties do not always land on the first endpoint
+        int offset = ThreadLocalRandom.current().nextInt(candidates.size());
+        OllamaEndpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            OllamaEndpoint endpoint = candidates.get((offset + i) % candidates.size());
+            double throughput = endpoint.getTokensPerSecond() > 0 ? endpoint.getTokensPerSecond() : fallbackThroughput;
+            double score = (endpoint.getInFlight() + 1) / throughput;
+            if (score < bestScore) {
+                bestScore = score;
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Endpoint to read model metadata (e.g. {@code /api/show}) from: the first healthy one, since all
+     * serve the same models, or the first endpoint when none is healthy.
+     */
+    public OllamaEndpoint metadataEndpoint() {
+        return endpoints.stream().filter(OllamaEndpoint::isHealthy).findFirst().orElse(endpoints.get(0));
+    }
+
+    /** Passive health signal from a failed call; only connection-level failures count. */
+    void reportFailure(OllamaEndpoint endpoint, Throwable error) {
+        if (isConnectionFailure(error) && endpoint.markFailure(failureThreshold)) {
+            logger.warn("Ollama endpoint removed from rotation endpoint={} reason={}",
+                    endpoint.getBaseUrl(), error.getMessage());
+        }
+    }
+
+    void reportSuccess(OllamaEndpoint endpoint) {
+        if (endpoint.markSuccess()) {
+            logger.info("Ollama endpoint back in rotation endpoint={}", endpoint.getBaseUrl());
+        }
+    }
+
+    private void checkHealth() {
+        for (OllamaEndpoint endpoint : endpoints) {
+            CompletableFuture.runAsync(() -> endpoint.getApi().listModels(), healthCheckers)
+                    .orTimeout(healthCheckTimeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((ignored, error) -> {
+                        if (error == null) {
+                            reportSuccess(endpoint);
+                        } else if (endpoint.markFailure(failureThreshold)) {
+                            logger.warn("Ollama endpoint failed health check, removed from rotation endpoint={} reason={}",
+                                    endpoint.getBaseUrl(), error.getMessage());
+                        }
+                    });
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof UnknownHostException
+                    || t instanceof ResourceAccessException || t instanceof WebClientRequestException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() {
+        healthScheduler.shutdownNow();
+        healthCheckers.shutdownNow();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.aiarticlesummarizer.llm;
+
+/**
+ * Thrown when a model call is shed by admission control, either because the wait queue is full or
+ * because the request's queue deadline passed. Mapped to HTTP 429 with a {@code Retry-After} header.
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * {@link ChatModel} that spreads calls over an {@link OllamaEndpointPool}. Each call is routed when
+ * it starts (for streams: on subscription) and counted against its endpoint until it finishes.
+ * Generation throughput is taken from Ollama's {@code eval-count}/{@code eval-duration} so queueing
+ * and prompt processing do not skew the routing weight.
+ */
+public class PooledOllamaChatModel implements ChatModel {
+
+    private final OllamaEndpointPool pool;
+    private final ModelResidencyManager residency;
+    private final MeterRegistry meterRegistry;
+
+    public PooledOllamaChatModel(OllamaEndpointPool pool, ModelResidencyManager residency, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.residency = residency;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        OllamaEndpoint endpoint = pool.select();
+        String model = modelOf(prompt);
+        endpoint.acquire();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            ChatResponse response = endpoint.getChatModel().call(residency.begin(endpoint, model, prompt));
+            recordThroughput(endpoint, response);
+            pool.reportSuccess(endpoint);
+            return response;
+        } catch (RuntimeException e) {
+            onError(endpoint, "call", e);
+            throw e;
+        } finally {
+            residency.end(endpoint, model);
+            endpoint.release();
+            sample.stop(latencyTimer(endpoint, "call"));
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            OllamaEndpoint endpoint = pool.select();
+            String model = modelOf(prompt);
+            endpoint.acquire();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return endpoint.getChatModel().stream(residency.begin(endpoint, model, prompt))
+                    .doOnNext(response -> recordThroughput(endpoint, response))
+                    .doOnComplete(() -> pool.reportSuccess(endpoint))
+                    .doOnError(error -> onError(endpoint, "stream", error))
+                    .doFinally(signal -> {
+                        residency.end(endpoint, model);
+                        endpoint.release();
+                        sample.stop(latencyTimer(endpoint, "stream"));
+                    });
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return pool.endpoints().get(0).getChatModel().getDefaultOptions();
+    }
+
+    private String modelOf(Prompt prompt) {
+        ChatOptions options = prompt.getOptions();
+        return options != null && options.getModel() != null ? options.getModel() : getDefaultOptions().getModel();
+    }
+
+    private void onError(OllamaEndpoint endpoint, String mode, Throwable error) {
+        meterRegistry.counter("summarizer.ollama.errors",
+                "endpoint", endpoint.getBaseUrl(), "mode", mode).increment();
+        pool.reportFailure(endpoint, error);
+    }
+
+    private Timer latencyTimer(OllamaEndpoint endpoint, String mode) {
+        return Timer.builder("summarizer.ollama.latency")
+                .description("Model call latency per Ollama endpoint")
+                .tag("endpoint", endpoint.getBaseUrl())
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    /** Only the final (done) response of a generation carries eval statistics. */
+    private static void recordThroughput(OllamaEndpoint endpoint, ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        ChatResponseMetadata metadata = response.getMetadata();
+        Object evalCount = metadata.get("eval-count");
+        Object evalDuration = metadata.get("eval-duration");
+        if (evalCount instanceof Number count && evalDuration instanceof Duration duration
+                && count.intValue() > 0 && !duration.isZero()) {
+            endpoint.recordThroughput(count.doubleValue() / (duration.toNanos() / 1e9));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.aiarticlesummarizer.llm;
+
+/**
+ * Scheduling class of a model call. Lower rank is served first; waiting callers are promoted one
+ * class per aging step so background work cannot starve indefinitely.
+ */
+public enum Priority {
+    /** A user is watching tokens arrive (SSE streaming). */
+    INTERACTIVE(0),
+    /** Blocking API calls. */
+    STANDARD(1),
+    /** Batch and asynchronous jobs. */
+    BACKGROUND(2);
+
+    private final int rank;
+
+    Priority(int rank) {
+        this.rank = rank;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
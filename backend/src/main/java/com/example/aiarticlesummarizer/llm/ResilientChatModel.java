@@ -0,0 +1,397 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resilience layer around the model backend.
+ * <ul>
+ *   <li>A {@link CircuitBreaker} per model fails fast while that model keeps failing or timing out.</li>
+ *   <li>Blocking calls still running after the model's recent p95 latency get one hedged duplicate
+ *       (same model, which the pool routes to another endpoint, or {@code hedge-model}); the first
+ *       success wins. Hedges are limited to {@code hedge-budget} of calls. Attempts run as streams
+ *       so the loser, or an attempt past {@code call-timeout}, is cancelled and its request to Ollama
+ *       closed rather than left generating.</li>
+ *   <li>On failure or an open breaker the call moves down the fallback chain, e.g.
+ *       {@code llama3.2:1b,instant}. Streams only fall back before their first chunk.</li>
+ * </ul>
+ * Responses not served by the primary model on the first try are labelled via {@link ModelLabel}.
+ */
+public class ResilientChatModel implements ChatModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientChatModel.class);
+
+    private final ChatModel delegate;
+    private final ExtractiveChatModel extractive;
+    private final MeterRegistry meterRegistry;
+    private final Settings settings;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Object hedgeBudgetLock = new Object();
+    private double hedgeTokens;
+
+    /** Tunables, bound from {@code app.resilience.*}. */
+    public record Settings(List<String> fallbackChain,
+                           Duration callTimeout,
+                           Duration streamIdleTimeout,
+                           int breakerWindow,
+                           int breakerMinimumCalls,
+                           double breakerFailureRate,
+                           long breakerOpenMs,
+                           int breakerHalfOpenCalls,
+                           boolean hedgeEnabled,
+                           String hedgeModel,
+                           double hedgePercentile,
+                           int hedgeMinSamples,
+                           long hedgeMinDelayMs,
+                           double hedgeBudget) {
+
+        /** Parses a comma-separated chain such as {@code "llama3.2:1b, instant"}. */
+        public static List<String> parseChain(String chain) {
+            return chain == null ? List.of() : Arrays.stream(chain.split(","))
+                    .map(String::trim)
+                    .filter(model -> !model.isEmpty())
+                    .toList();
+        }
+    }
+
+    public ResilientChatModel(ChatModel delegate, ExtractiveChatModel extractive, MeterRegistry meterRegistry,
+                              Settings settings) {
+        this.delegate = delegate;
+        this.extractive = extractive;
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        RuntimeException lastError = null;
+        List<String> chain = chain(prompt);
+        for (int i = 0; i < chain.size(); i++) {
+            String model = chain.get(i);
+            String route = i == 0 ? ModelLabel.ROUTE_PRIMARY : ModelLabel.ROUTE_FALLBACK;
+            if (extractive.handles(model)) {
+                return fallbackUsed(model, ModelLabel.withRoute(extractive.call(prompt), route));
+            }
+            CircuitBreaker breaker = breaker(model);
+            if (!breaker.tryAcquire()) {
+                lastError = new IllegalStateException("Model " + model + " is unavailable (circuit open)");
+                continue;
+            }
+            try {
+                ChatResponse response = callHedged(withModel(prompt, model), model, route);
+                breaker.onSuccess();
+                return i == 0 ? response : fallbackUsed(model, response);
+            } catch (RuntimeException e) {
+                breaker.onFailure();
+                lastError = e;
+                logger.warn("Model call failed model={} message={}", model, e.getMessage());
+            }
+        }
+        throw lastError != null ? lastError : new IllegalStateException("No model available");
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return streamFrom(prompt, chain(prompt), 0, null);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    /**
+     * Streams from {@code chain[index]}, moving to the next entry if it fails before emitting anything.
+     */
+    private Flux<ChatResponse> streamFrom(Prompt prompt, List<String> chain, int index, Throwable previous) {
+        if (index >= chain.size()) {
+            return Flux.error(previous != null ? previous : new IllegalStateException("No model available"));
+        }
+        String model = chain.get(index);
+        String route = index == 0 ? ModelLabel.ROUTE_PRIMARY : ModelLabel.ROUTE_FALLBACK;
+        if (extractive.handles(model)) {
+            return extractive.stream(prompt)
+                    .map(response -> fallbackUsed(model, ModelLabel.withRoute(response, route)));
+        }
+        return Flux.defer(() -> {
+            CircuitBreaker breaker = breaker(model);
+            if (!breaker.tryAcquire()) {
+                return streamFrom(prompt, chain, index + 1,
+                        new IllegalStateException("Model " + model + " is unavailable (circuit open)"));
+            }
+            AtomicBoolean emitted = new AtomicBoolean();
+            AtomicBoolean reported = new AtomicBoolean();
+            return delegate.stream(withModel(prompt, model))
+                    // First chunk may take long (prompt processing); after that a gap means a stall
+                    .timeout(Mono.delay(settings.callTimeout()), chunk -> Mono.delay(settings.streamIdleTimeout()))
+                    .map(response -> {
+                        emitted.set(true);
+                        return index == 0 ? response : ModelLabel.withRoute(response, route);
+                    })
+                    .doOnComplete(() -> {
+                        if (reported.compareAndSet(false, true)) {
+                            breaker.onSuccess();
+                            if (index > 0) {
+                                meterRegistry.counter("summarizer.fallback.used", "model", model).increment();
+                            }
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        // Abandoned by the client: neither a success nor a failure of the model
+                        if (reported.compareAndSet(false, true)) {
+                            if (emitted.get()) {
+                                breaker.onSuccess();
+                            } else {
+                                breaker.onIgnored();
+                            }
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        if (reported.compareAndSet(false, true)) {
+                            breaker.onFailure();
+                        }
+                        logger.warn("Model stream failed model={} emitted={} message={}", model, emitted.get(), error.getMessage());
+                        return emitted.get()
+                                ? Flux.error(error)
+                                : streamFrom(prompt, chain, index + 1, error);
+                    });
+        });
+    }
+
+    /**
+     * Blocking call with an optional hedge: if the first attempt is still running after the
+     * model's recent p95, a second attempt starts and whichever succeeds first is returned.
+     */
+    private ChatResponse callHedged(Prompt prompt, String model, String route) {
+        LatencyWindow window = latencies.computeIfAbsent(model, m -> new LatencyWindow(200));
+        long timeoutNanos = settings.callTimeout().toNanos();
+        long start = System.nanoTime();
+        addHedgeBudget();
+
+        Race race = new Race();
+        List<Disposable> attempts = new ArrayList<>();
+        attempts.add(submit(prompt, race, window, false));
+        boolean hedged = false;
+        try {
+            long hedgeDelayNanos = hedgeDelayNanos(window);
+            if (hedgeDelayNanos > 0 && hedgeDelayNanos < timeoutNanos) {
+                try {
+                    return label(race.winner.get(hedgeDelayNanos, TimeUnit.NANOSECONDS), route);
+                } catch (TimeoutException slow) {
+                    if (takeHedgeToken()) {
+                        String hedgeModel = settings.hedgeModel() != null && !settings.hedgeModel().isBlank()
+                                ? settings.hedgeModel() : model;
+                        meterRegistry.counter("summarizer.hedge.requests", "model", model).increment();
+                        attempts.add(submit(withModel(prompt, hedgeModel), race, window, true));
+                        hedged = true;
+                    }
+                }
+            }
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            ChatResponse response = race.winner.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            boolean hedgeWon = hedged && ModelLabel.ROUTE_HEDGE.equals(response.getMetadata().get(ModelLabel.ROUTE_KEY));
+            if (hedged) {
+                meterRegistry.counter("summarizer.hedge.wins", "model", model,
+                        "winner", hedgeWon ? "hedge" : "primary").increment();
+            }
+            return hedgeWon ? ModelLabel.withRoute(response, route.equals(ModelLabel.ROUTE_PRIMARY)
+                    ? ModelLabel.ROUTE_HEDGE : route) : label(response, route);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Model " + model + " timed out after "
+                    + settings.callTimeout().toSeconds() + "s", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the model", e);
+        } finally {
+            for (Disposable attempt : attempts) {
+                attempt.dispose(); // cancels the loser (or a timed-out call) and closes its HTTP exchange
+            }
+        }
+    }
+
+    /**
+     * Starts one attempt as a stream collected into a single response. Unlike a blocking call on
+     * another thread, disposing the subscription cancels the request to Ollama and frees its slot.
+     */
+    private Disposable submit(Prompt prompt, Race race, LatencyWindow window, boolean hedge) {
+        race.started();
+        long start = System.nanoTime();
+        return delegate.stream(prompt)
+                .collectList()
+                .map(ResilientChatModel::merge)
+                .subscribe(response -> {
+                    window.record(System.nanoTime() - start);
+                    race.winner.complete(hedge ? ModelLabel.withRoute(response, ModelLabel.ROUTE_HEDGE) : response);
+                }, race::failed);
+    }
+
+    /** Joins streamed chunks into the response a blocking call would have returned; the last chunk carries Ollama's stats. */
+    private static ChatResponse merge(List<ChatResponse> chunks) {
+        StringBuilder text = new StringBuilder();
+        ChatResponse last = null;
+        for (ChatResponse chunk : chunks) {
+            Generation generation = chunk.getResult();
+            if (generation != null && generation.getOutput() != null && generation.getOutput().getText() != null) {
+                text.append(generation.getOutput().getText());
+            }
+            last = chunk;
+        }
+        if (last == null) {
+            throw new IllegalStateException("Model returned an empty response");
+        }
+        Generation generation = last.getResult();
+        AssistantMessage message = AssistantMessage.builder()
+                .content(text.toString())
+                .properties(generation != null && generation.getOutput() != null
+                        ? generation.getOutput().getMetadata() : Map.of())
+                .build();
+        ChatGenerationMetadata generationMetadata = generation != null && generation.getMetadata() != null
+                ? generation.getMetadata() : ChatGenerationMetadata.NULL;
+        return new ChatResponse(List.of(new Generation(message, generationMetadata)), last.getMetadata());
+    }
+
+    private long hedgeDelayNanos(LatencyWindow window) {
+        if (!settings.hedgeEnabled() || window.size() < settings.hedgeMinSamples()) {
+            return 0;
+        }
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(settings.hedgeMinDelayMs()),
+                window.percentile(settings.hedgePercentile()));
+    }
+
+    /** Each call earns {@code hedge-budget} of a hedge; at most ten can be saved up for bursts. */
+    private void addHedgeBudget() {
+        synchronized (hedgeBudgetLock) {
+            hedgeTokens = Math.min(10.0, hedgeTokens + settings.hedgeBudget());
+        }
+    }
+
+    private boolean takeHedgeToken() {
+        synchronized (hedgeBudgetLock) {
+            if (hedgeTokens >= 1.0) {
+                hedgeTokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private List<String> chain(Prompt prompt) {
+        List<String> chain = new ArrayList<>();
+        chain.add(modelOf(prompt));
+        for (String model : settings.fallbackChain()) {
+            if (!chain.contains(model)) {
+                chain.add(model);
+            }
+        }
+        return chain;
+    }
+
+    private String modelOf(Prompt prompt) {
+        ChatOptions options = prompt.getOptions();
+        if (options != null && options.getModel() != null) {
+            return options.getModel();
+        }
+        ChatOptions defaults = delegate.getDefaultOptions();
+        return defaults != null && defaults.getModel() != null ? defaults.getModel() : "default";
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, m -> new CircuitBreaker(m, meterRegistry,
+                settings.breakerWindow(), settings.breakerMinimumCalls(), settings.breakerFailureRate(),
+                settings.breakerOpenMs(), settings.breakerHalfOpenCalls()));
+    }
+
+    private ChatResponse fallbackUsed(String model, ChatResponse response) {
+        meterRegistry.counter("summarizer.fallback.used", "model", model).increment();
+        return response;
+    }
+
+    private static ChatResponse label(ChatResponse response, String route) {
+        return ModelLabel.ROUTE_PRIMARY.equals(route) ? response : ModelLabel.withRoute(response, route);
+    }
+
+    private static Prompt withModel(Prompt prompt, String model) {
+        ChatOptions options = prompt.getOptions();
+        if (options != null && model.equals(options.getModel())) {
+            return prompt;
+        }
+        OllamaChatOptions copy = options instanceof OllamaChatOptions ollama
+                ? OllamaChatOptions.fromOptions(ollama)
+                : new OllamaChatOptions();
+        copy.setModel(model);
+        return new Prompt(prompt.getInstructions(), copy);
+    }
+
+    /** Attempts of one blocking call: the first success wins, it fails only once every attempt has failed. */
+    private static final class Race {
+        final CompletableFuture<ChatResponse> winner = new CompletableFuture<>();
+        private int started;
+        private int failed;
+
+        synchronized void started() {
+            started++;
+        }
+
+        synchronized void failed(Throwable error) {
+            if (++failed >= started) {
+                winner.completeExceptionally(error);
+            }
+        }
+    }
+
+    /** Recent successful call latencies of one model, for the hedge delay. */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+}
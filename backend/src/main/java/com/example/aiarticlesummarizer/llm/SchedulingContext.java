@@ -0,0 +1,71 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Who a model call is made for and at what priority. Bound to the calling thread by the controllers
+ * and read by {@link AdmissionControlledChatModel} when the call is admitted.
+ */
+public record SchedulingContext(String user, Priority priority) {
+
+    public static final SchedulingContext DEFAULT = new SchedulingContext("anonymous", Priority.STANDARD);
+
+    private static final ThreadLocal<SchedulingContext> CURRENT = new ThreadLocal<>();
+
+    /** Restores the previously bound context when closed. */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static SchedulingContext current() {
+        SchedulingContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    public Scope bind() {
+        SchedulingContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Wraps work so it runs with this context bound, e.g. when handing it to another thread.
+     */
+    public <T> Callable<T> wrap(Callable<T> work) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                return work.call();
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable work) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                work.run();
+            }
+        };
+    }
+
+    /**
+     * Subscribes to {@code source} with this context bound, so work done at subscription time
+     * (e.g. inside {@code Flux.defer}) sees it on whichever thread subscribes.
+     */
+    public <T> Flux<T> wrap(Flux<T> source) {
+        return Flux.from((Publisher<T>) subscriber -> {
+            try (Scope ignored = bind()) {
+                source.subscribe(subscriber);
+            }
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.aiarticlesummarizer.model;
+
+/** Lifecycle of a {@link SummaryJob}. */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
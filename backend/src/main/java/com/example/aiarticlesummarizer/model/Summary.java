@@ -4,14 +4,29 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "summaries")
+@Table(name = "summaries", indexes = {
+        @Index(name = "idx_summaries_source_key", columnList = "source_key, target_length"),
+        // History is listed newest first and paged by (createdAt, id); see SummaryRepository.findPageAfter
+        @Index(name = "idx_summaries_created_at_id", columnList = "created_at DESC, id DESC")
+})
 public class Summary {
 
+    /** Column length of {@code originalContent}; longer (map-reduce) articles are stored truncated. */
+    public static final int MAX_ORIGINAL_CONTENT_LENGTH = 10000;
+
+    public static final String STATUS_COMPLETED = "completed";
+    /** Partial output of a stream the client abandoned; kept only with {@code app.streaming.on-cancel=store}. */
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    /** Ids reserved per sequence call (pooled optimizer); batched inserts need no round trip per row. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "summaries_seq")
+    @SequenceGenerator(name = "summaries_seq", sequenceName = "summaries_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(nullable = false, length = 10000)
+    @Column(nullable = false, length = MAX_ORIGINAL_CONTENT_LENGTH)
     private String originalContent;
 
     @Column(nullable = false, length = 5000)
@@ -23,6 +38,10 @@ public class Summary {
     @Column(length = 500)
     private String articleTitle;
 
+    /** Hash of the source URL, or of the normalized text for pasted articles; see {@code SummaryDerivation}. */
+    @Column(name = "source_key", length = 64)
+    private String sourceKey;
+
     @Column(length = 20)
     private String targetLength;
 
@@ -32,12 +51,18 @@ public class Summary {
     @Column(nullable = false)
     private Long latencyMs;
 
+    @Column(length = 20)
+    private String status;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = STATUS_COMPLETED;
+        }
     }
 
     // Getters and Setters
@@ -54,6 +79,9 @@ public class Summary {
     }
 
     public void setOriginalContent(String originalContent) {
+        if (originalContent != null && originalContent.length() > MAX_ORIGINAL_CONTENT_LENGTH) {
+            originalContent = originalContent.substring(0, MAX_ORIGINAL_CONTENT_LENGTH - 15) + "... [truncated]";
+        }
         this.originalContent = originalContent;
     }
 
@@ -81,6 +109,14 @@ public class Summary {
         this.articleTitle = articleTitle;
     }
 
+    public String getSourceKey() {
+        return sourceKey;
+    }
+
+    public void setSourceKey(String sourceKey) {
+        this.sourceKey = sourceKey;
+    }
+
     public String getTargetLength() {
         return targetLength;
     }
@@ -105,6 +141,14 @@ public class Summary {
         this.latencyMs = latencyMs;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
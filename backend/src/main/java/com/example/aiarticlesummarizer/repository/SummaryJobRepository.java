@@ -0,0 +1,90 @@
+package com.example.aiarticlesummarizer.repository;
+
+import com.example.aiarticlesummarizer.model.JobStatus;
+import com.example.aiarticlesummarizer.model.SummaryJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SummaryJobRepository extends JpaRepository<SummaryJob, Long> {
+
+    /** Queued jobs that are due, plus running jobs whose worker stopped renewing its lease. */
+    @Query("SELECT j FROM SummaryJob j WHERE " +
+           "(j.status = com.example.aiarticlesummarizer.model.JobStatus.QUEUED AND j.availableAt <= :now) OR " +
+           "(j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING AND j.leaseExpiresAt < :now " +
+           "AND j.attempts < :maxAttempts) " +
+           "ORDER BY j.id")
+    List<SummaryJob> findClaimable(@Param("now") LocalDateTime now,
+                                   @Param("maxAttempts") int maxAttempts,
+                                   Pageable pageable);
+
+    /**
+     * Claims one job if it is still claimable. The UPDATE takes the row lock, so when several
+     * workers race for the same row exactly one sees an update count of 1.
+     */
+    @Modifying
+    @Query("UPDATE SummaryJob j SET j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING, " +
+           "j.leaseOwner = :worker, j.leaseExpiresAt = :leaseUntil, j.attempts = j.attempts + 1, " +
+           "j.startedAt = :now " +
+           "WHERE j.id = :id AND (" +
+           "(j.status = com.example.aiarticlesummarizer.model.JobStatus.QUEUED AND j.availableAt <= :now) OR " +
+           "(j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING AND j.leaseExpiresAt < :now " +
+           "AND j.attempts < :maxAttempts))")
+    int claim(@Param("id") Long id,
+              @Param("worker") String worker,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE SummaryJob j SET j.leaseExpiresAt = :leaseUntil " +
+           "WHERE j.id IN :ids AND j.leaseOwner = :worker " +
+           "AND j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING")
+    int renewLeases(@Param("ids") Collection<Long> ids,
+                    @Param("worker") String worker,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /** Records the outcome, unless the lease was lost to another worker in the meantime. */
+    @Modifying
+    @Query("UPDATE SummaryJob j SET j.status = :status, j.summaryId = :summaryId, j.error = :error, " +
+           "j.finishedAt = :now, j.leaseOwner = NULL, j.leaseExpiresAt = NULL " +
+           "WHERE j.id = :id AND j.leaseOwner = :worker " +
+           "AND j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING")
+    int finish(@Param("id") Long id,
+               @Param("worker") String worker,
+               @Param("status") JobStatus status,
+               @Param("summaryId") Long summaryId,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    /** Puts a job back in the queue without counting the attempt, e.g. when the model shed load. */
+    @Modifying
+    @Query("UPDATE SummaryJob j SET j.status = com.example.aiarticlesummarizer.model.JobStatus.QUEUED, " +
+           "j.availableAt = :availableAt, j.attempts = j.attempts - 1, " +
+           "j.leaseOwner = NULL, j.leaseExpiresAt = NULL " +
+           "WHERE j.id = :id AND j.leaseOwner = :worker " +
+           "AND j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING")
+    int requeue(@Param("id") Long id,
+                @Param("worker") String worker,
+                @Param("availableAt") LocalDateTime availableAt);
+
+    /** Fails abandoned jobs that have already used up their attempts. */
+    @Modifying
+    @Query("UPDATE SummaryJob j SET j.status = com.example.aiarticlesummarizer.model.JobStatus.FAILED, " +
+           "j.error = :error, j.finishedAt = :now, j.leaseOwner = NULL, j.leaseExpiresAt = NULL " +
+           "WHERE j.status = com.example.aiarticlesummarizer.model.JobStatus.RUNNING " +
+           "AND j.leaseExpiresAt < :now AND j.attempts >= :maxAttempts")
+    int failExhausted(@Param("now") LocalDateTime now,
+                      @Param("maxAttempts") int maxAttempts,
+                      @Param("error") String error);
+
+    long countByStatus(JobStatus status);
+}
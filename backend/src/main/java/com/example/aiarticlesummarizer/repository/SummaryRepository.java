@@ -16,16 +16,32 @@ public interface SummaryRepository extends JpaRepository<Summary, Long> {
 
     Page<Summary> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
-    List<Summary> findTop10ByOrderByCreatedAtDesc();
-
+    /** First page of the history listing, newest first. */
+    List<Summary> findByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    /**
+     * The rows after {@code (createdAt, id)} in listing order. The leading {@code createdAt <=} bound
+     * lets the database seek into {@code idx_summaries_created_at_id}, so a deep page costs the same
+     * as the first one.
+     */
+    @Query("SELECT s FROM Summary s WHERE s.createdAt <= :createdAt " +
+           "AND (s.createdAt < :createdAt OR s.id < :id) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<Summary> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /** Substring scan; only used while {@code SummarySearchIndex} is loading. */
     @Query("SELECT s FROM Summary s WHERE " +
            "LOWER(s.summary) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(s.originalContent) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(s.articleTitle) LIKE LOWER(CONCAT('%', :query, '%')) " +
            "ORDER BY s.createdAt DESC")
-    List<Summary> searchSummaries(@Param("query") String query);
+    Page<Summary> searchSummaries(@Param("query") String query, Pageable pageable);
 
     List<Summary> findBySourceUrl(String sourceUrl);
 
+    List<Summary> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Summary> findTop10BySourceKeyAndTargetLengthInOrderByCreatedAtDesc(String sourceKey, List<String> targetLengths);
+
     void deleteByCreatedAtBefore(LocalDateTime cutoffDate);
 }
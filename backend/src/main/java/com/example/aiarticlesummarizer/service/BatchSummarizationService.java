@@ -0,0 +1,147 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Summarizes many URLs or texts as a staged pipeline: fetch (network I/O), extract (CPU) and
+ * summarize (model), each with its own bounded parallelism so page downloads overlap model time.
+ * Items are emitted as soon as they finish; a failing item yields an error outcome and never
+ * aborts the rest of the batch.
+ */
+@Service
+public class BatchSummarizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSummarizationService.class);
+
+    /** Final result of one batch item: either a response or the error that stopped it. */
+    public record Outcome(int index, SummarizeResponse response, Throwable error) {}
+
+    /** Pipeline state of one item as it moves through the stages. */
+    private static final class Item {
+        final int index;
+        final SummarizeRequest request;
+        Document document;
+        String content;
+        String title;
+        SummarizeResponse response;
+        Throwable error;
+
+        Item(int index, SummarizeRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+
+        boolean hasUrl() {
+            return request.getUrl() != null && !request.getUrl().isBlank();
+        }
+    }
+
+    private final UrlFetchingService urlFetchingService;
+    private final SummarizationService summarizationService;
+    private final DemoModeService demoModeService;
+    private final MeterRegistry meterRegistry;
+    private final int fetchParallelism;
+    private final int extractParallelism;
+    private final int summarizeParallelism;
+
+    public BatchSummarizationService(UrlFetchingService urlFetchingService,
+                                     SummarizationService summarizationService,
+                                     DemoModeService demoModeService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.batch.fetch-parallelism:16}") int fetchParallelism,
+                                     @Value("${app.batch.extract-parallelism:4}") int extractParallelism,
+                                     @Value("${app.batch.summarize-parallelism:4}") int summarizeParallelism) {
+        this.urlFetchingService = urlFetchingService;
+        this.summarizationService = summarizationService;
+        this.demoModeService = demoModeService;
+        this.meterRegistry = meterRegistry;
+        this.fetchParallelism = Math.max(1, fetchParallelism);
+        this.extractParallelism = Math.max(1, extractParallelism);
+        this.summarizeParallelism = Math.max(1, summarizeParallelism);
+    }
+
+    public Flux<Outcome> summarizeBatch(List<SummarizeRequest> requests, SchedulingContext context) {
+        logger.info("Batch summarization started items={} user={}", requests.size(), context.user());
+        return Flux.range(0, requests.size())
+                .map(i -> new Item(i, requests.get(i)))
+                .flatMap(item -> stage("fetch", item, () -> fetch(item), Schedulers.boundedElastic()), fetchParallelism)
+                .flatMap(item -> stage("extract", item, () -> extract(item), Schedulers.parallel()), extractParallelism)
+                .flatMap(item -> stage("summarize", item, context.wrap(() -> summarize(item)), Schedulers.boundedElastic())
+                        .map(done -> new Outcome(done.index, done.response, done.error)), summarizeParallelism)
+                .doOnNext(outcome -> meterRegistry.counter("summarizer.batch.items",
+                        "status", outcome.error() == null ? "success" : "error").increment());
+    }
+
+    /**
+     * Runs one stage for an item on the given scheduler. Items that already failed pass through
+     * untouched; a failure in this stage is recorded on the item instead of erroring the Flux.
+     */
+    private <T> Mono<Item> stage(String name, Item item, Callable<T> work, Scheduler scheduler) {
+        if (item.error != null) {
+            return Mono.just(item);
+        }
+        return Mono.fromCallable(() -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    try {
+                        work.call();
+                    } finally {
+                        sample.stop(Timer.builder("summarizer.batch.stage.latency")
+                                .description("Latency of batch pipeline stages per item")
+                                .tag("stage", name)
+                                .register(meterRegistry));
+                    }
+                    return item;
+                })
+                .subscribeOn(scheduler)
+                .onErrorResume(error -> {
+                    logger.warn("Batch item {} failed in {} stage: {}", item.index, name, error.getMessage());
+                    item.error = error;
+                    return Mono.just(item);
+                });
+    }
+
+    private Void fetch(Item item) throws Exception {
+        if (item.hasUrl() && !demoModeService.isDemoMode()) {
+            item.document = urlFetchingService.fetchDocument(item.request.getUrl());
+        }
+        return null;
+    }
+
+    private Void extract(Item item) throws Exception {
+        if (item.document != null) {
+            item.content = urlFetchingService.extractArticleContent(item.document, item.request.getUrl());
+            item.title = urlFetchingService.extractArticleTitle(item.document);
+            item.document = null; // release the parsed DOM before the (slow) model stage
+        } else if (!item.hasUrl()) {
+            item.content = Objects.requireNonNull(item.request.getContent(), "content must not be null");
+        }
+        return null;
+    }
+
+    private SummarizeResponse summarize(Item item) throws Exception {
+        if (demoModeService.isDemoMode()) {
+            item.response = summarizationService.summarize(item.request);
+        } else {
+            item.response = summarizationService.summarizeFetched(
+                    item.content, item.request.getUrl(), item.title, item.request.getTargetLength());
+        }
+        return item.response;
+    }
+}
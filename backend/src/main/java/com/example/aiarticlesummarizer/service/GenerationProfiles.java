@@ -0,0 +1,126 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.config.GenerationProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Builds the Ollama options for every prompt from the {@link GenerationProperties generation profile}
+ * of its target length: output cap, sampling and stop sequences, and a {@code num_ctx} just large
+ * enough for the prompt plus the output. Also records how generations ended, so budgets that cut
+ * summaries short show up in {@code summarizer.generation.truncated}.
+ */
+@Service
+public class GenerationProfiles {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationProfiles.class);
+
+    /** Profile for the per-chunk notes of map-reduce. */
+    public static final String MAP = "map";
+
+    /** Ollama's {@code done_reason} when {@code num_predict} was reached. */
+    private static final String LENGTH = "length";
+
+    private static final GenerationProperties.Profile UNBOUNDED = new GenerationProperties.Profile();
+
+    private final GenerationProperties properties;
+    private final PromptBudget promptBudget;
+    private final MeterRegistry meterRegistry;
+
+    public GenerationProfiles(GenerationProperties properties,
+                              PromptBudget promptBudget,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.promptBudget = promptBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Options for a prompt to {@code model}; {@code promptParts} are the message texts, used to size
+     * the context. {@code keep_alive} is set per call by the residency manager.
+     */
+    public OllamaChatOptions options(String model, String profileName, String... promptParts) {
+        OllamaChatOptions.Builder builder = OllamaChatOptions.builder().model(model);
+        if (!properties.isEnabled()) {
+            return builder.numCtx(promptBudget.contextTokens(model)).build();
+        }
+        GenerationProperties.Profile profile = profile(profileName);
+        int promptTokens = properties.getTemplateTokens();
+        for (String part : promptParts) {
+            promptTokens += promptBudget.estimateTokens(part, model);
+        }
+        builder.numCtx(contextSize(model, promptTokens, profile.getMaxTokens()));
+        if (profile.getMaxTokens() > 0) {
+            builder.numPredict(profile.getMaxTokens());
+        }
+        if (profile.getTemperature() != null) {
+            builder.temperature(profile.getTemperature());
+        }
+        if (profile.getStop() != null && !profile.getStop().isEmpty()) {
+            builder.stop(List.copyOf(profile.getStop()));
+        }
+        return builder.build();
+    }
+
+    /** Output cap of a profile; 0 when unbounded or profiles are disabled. */
+    public int maxTokens(String profileName) {
+        return properties.isEnabled() ? profile(profileName).getMaxTokens() : 0;
+    }
+
+    /**
+     * Records generated tokens and whether the output cap ended the generation. Responses without
+     * Ollama metadata (cache replays, extractive fallbacks) are ignored.
+     */
+    public void record(String profileName, String model, ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getMetadata() == null) {
+            return;
+        }
+        String finishReason = response.getResult().getMetadata().getFinishReason();
+        if (finishReason == null) {
+            return;
+        }
+        if (response.getMetadata() != null && response.getMetadata().get("eval-count") instanceof Number count) {
+            DistributionSummary.builder("summarizer.generation.tokens")
+                    .description("Generated tokens per call and generation profile")
+                    .tag("profile", profileName)
+                    .register(meterRegistry)
+                    .record(count.doubleValue());
+        }
+        if (LENGTH.equalsIgnoreCase(finishReason)) {
+            meterRegistry.counter("summarizer.generation.truncated", "profile", profileName, "model", model).increment();
+            logger.info("Generation stopped at output budget profile={} model={} maxTokens={}",
+                    profileName, model, profile(profileName).getMaxTokens());
+        }
+    }
+
+    /**
+     * Smallest configured bucket that holds prompt and output, capped at the model's window. A few
+     * fixed sizes keep Ollama from reloading the model for every distinct prompt length.
+     */
+    private int contextSize(String model, int promptTokens, int maxTokens) {
+        int window = promptBudget.contextTokens(model);
+        if (maxTokens <= 0) {
+            // Output length unknown: leave it the whole window
+            return window;
+        }
+        int needed = promptTokens + maxTokens;
+        for (int bucket : properties.getContextBuckets()) {
+            if (bucket >= needed && bucket <= window) {
+                return bucket;
+            }
+        }
+        return window;
+    }
+
+    private GenerationProperties.Profile profile(String name) {
+        GenerationProperties.Profile profile = properties.getProfiles().get(name);
+        return profile != null ? profile : UNBOUNDED;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.TargetLength;
+import com.example.aiarticlesummarizer.llm.AdaptiveConcurrencyLimiter;
+import com.example.aiarticlesummarizer.llm.Priority;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * LLM-free summaries from the article's top-ranked sentences (see {@link ExtractiveCompressor}).
+ * <p>
+ * Serves the {@code instant} target length, stands in for the model when a caller that is waiting
+ * on the response would otherwise queue longer than {@code app.instant.fallback-wait-seconds}, and
+ * ends the resilience fallback chain when every model has failed.
+ * Background work (jobs, batches) always waits for the model.
+ */
+@Service
+public class InstantSummarizer {
+
+    public static final String ENGINE = "instant";
+
+    private static final String OVERLOAD_LABEL = ENGINE + " (overload)";
+
+    /** An instant summary and the label recorded as {@code SummarizeResponse.model}. */
+    public record Result(String summary, String model) {}
+
+    private final ExtractiveCompressor extractiveCompressor;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final double fallbackWaitSeconds;
+    private final int instantTokens;
+    private final int shortTokens;
+    private final int mediumTokens;
+    private final int longTokens;
+
+    public InstantSummarizer(ExtractiveCompressor extractiveCompressor,
+                             AdaptiveConcurrencyLimiter limiter,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.instant.fallback-wait-seconds:30}") double fallbackWaitSeconds,
+                             @Value("${app.instant.instant-tokens:120}") int instantTokens,
+                             @Value("${app.instant.short-tokens:100}") int shortTokens,
+                             @Value("${app.instant.medium-tokens:200}") int mediumTokens,
+                             @Value("${app.instant.long-tokens:400}") int longTokens) {
+        this.extractiveCompressor = extractiveCompressor;
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.fallbackWaitSeconds = fallbackWaitSeconds;
+        this.instantTokens = instantTokens;
+        this.shortTokens = shortTokens;
+        this.mediumTokens = mediumTokens;
+        this.longTokens = longTokens;
+    }
+
+    public static boolean isInstant(String targetLength) {
+        return TargetLength.fromString(targetLength) == TargetLength.INSTANT;
+    }
+
+    /**
+     * Whether the model queue is too long for the current caller; {@code 0} disables the fallback.
+     */
+    public boolean shouldFallBack() {
+        if (fallbackWaitSeconds <= 0 || SchedulingContext.current().priority() == Priority.BACKGROUND) {
+            return false;
+        }
+        return limiter.estimatedWaitSeconds() > fallbackWaitSeconds;
+    }
+
+    /**
+     * Summarizes in-process. {@code overload} marks a fallback for a request that asked for the model.
+     */
+    public Result summarize(String content, String targetLength, boolean overload) {
+        String summary = extract(content, targetLength);
+        meterRegistry.counter("summarizer.instant.requests", "reason", overload ? "overload" : "requested").increment();
+        return new Result(summary, overload ? OVERLOAD_LABEL : ENGINE);
+    }
+
+    /**
+     * Answer of the resilience fallback chain when every model has failed; labelled by the chain as
+     * {@code "instant (fallback)"}.
+     */
+    public String fallback(String content, String targetLength) {
+        String summary = extract(content, targetLength);
+        meterRegistry.counter("summarizer.instant.requests", "reason", "fallback").increment();
+        return summary;
+    }
+
+    /**
+     * Extractive preview shown while the model evaluates the prompt; never persisted.
+     */
+    public String draft(String content, String targetLength) {
+        String summary = extract(content, targetLength);
+        meterRegistry.counter("summarizer.instant.requests", "reason", "draft").increment();
+        return summary;
+    }
+
+    private String extract(String content, String targetLength) {
+        int budget = switch (TargetLength.fromString(targetLength)) {
+            case INSTANT -> instantTokens;
+            case SHORT -> shortTokens;
+            case LONG -> longTokens;
+            default -> mediumTokens;
+        };
+        String summary = extractiveCompressor.select(content, budget).text();
+        if (TokenEstimator.estimate(summary, TokenEstimator.Family.DEFAULT) > budget) {
+            // Too few or too many sentences to rank: fall back to the lead
+            summary = lead(summary, budget);
+        }
+        return summary;
+    }
+
+    private static String lead(String text, int budgetTokens) {
+        int limit = Math.min(text.length(), budgetTokens * 4);
+        int cut = Math.max(text.lastIndexOf(". ", limit), text.lastIndexOf(".\n", limit));
+        return cut > 0 ? text.substring(0, cut + 1).strip() : text.substring(0, limit).strip() + "…";
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.example.aiarticlesummarizer.llm.ExtractiveChatModel;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hierarchical summarization for articles too long for a single prompt.
+ * <p>
+ * Used when the article does not fit the model's input budget (see {@link PromptBudget}).
+ * The article is split into paragraph-aligned chunks, each chunk is condensed into notes in parallel
+ * (bounded by {@code app.map-reduce.concurrency}), and a final reduce pass turns the notes into the
+ * summary. The reduce pass can be streamed so the SSE endpoint still emits tokens as they arrive.
+ */
+@Service
+public class MapReduceSummarizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapReduceSummarizer.class);
+
+    private final ChatModel chatModel;
+    private final PromptBudget promptBudget;
+    private final GenerationProfiles generationProfiles;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int chunkTokens;
+    private final int maxChunks;
+    private final int concurrency;
+
+    public MapReduceSummarizer(ChatModel chatModel,
+                               PromptBudget promptBudget,
+                               GenerationProfiles generationProfiles,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.map-reduce.enabled:true}") boolean enabled,
+                               @Value("${app.map-reduce.chunk-tokens:1500}") int chunkTokens,
+                               @Value("${app.map-reduce.max-chunks:12}") int maxChunks,
+                               @Value("${app.map-reduce.concurrency:2}") int concurrency) {
+        this.chatModel = chatModel;
+        this.promptBudget = promptBudget;
+        this.generationProfiles = generationProfiles;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.chunkTokens = chunkTokens;
+        this.maxChunks = maxChunks;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Whether the content is too long for a single prompt to the given model.
+     */
+    public boolean shouldSplit(String content, String model) {
+        return enabled && !promptBudget.fits(content, model);
+    }
+
+    /**
+     * Splits content into chunks of at most {@code chunk-tokens}, preferring paragraph boundaries and
+     * falling back to sentence boundaries for oversized paragraphs. At most {@code max-chunks} are
+     * returned; the tail of very long articles is dropped.
+     */
+    public List<String> split(String content, String model) {
+        TokenEstimator.Family family = TokenEstimator.Family.of(model);
+        int budget = Math.min(chunkTokens, promptBudget.inputBudget(model));
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String paragraph : content.split("\\n\\s*\\n")) {
+            String trimmed = paragraph.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int tokens = TokenEstimator.estimate(trimmed, family);
+            if (tokens > budget) {
+                flush(current, chunks);
+                currentTokens = 0;
+                splitSentences(trimmed, family, budget, chunks);
+                continue;
+            }
+            if (current.length() > 0 && currentTokens + tokens > budget) {
+                flush(current, chunks);
+                currentTokens = 0;
+            }
+            if (current.length() > 0) {
+                current.append("\n\n");
+            }
+            current.append(trimmed);
+            currentTokens += tokens;
+        }
+        flush(current, chunks);
+
+        if (chunks.size() > maxChunks) {
+            logger.info("Article split into {} chunks, keeping first {}", chunks.size(), maxChunks);
+            return new ArrayList<>(chunks.subList(0, maxChunks));
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs the map and reduce passes synchronously and returns the reduce response, whose text is
+     * the final summary.
+     */
+    public ChatResponse summarize(List<String> chunks, String targetLength, String model) {
+        String notes = map(chunks, targetLength, model, SchedulingContext.current(), "blocking").block();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            ChatResponse response = chatModel.call(reducePrompt(notes, targetLength, model));
+            if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
+                throw new IllegalStateException("Invalid response structure from AI model");
+            }
+            String text = response.getResult().getOutput().getText();
+            if (text == null || text.isBlank()) {
+                throw new IllegalStateException("Received empty response from AI model");
+            }
+            return response;
+        } finally {
+            sample.stop(stageTimer("reduce", "blocking", targetLength));
+        }
+    }
+
+    /**
+     * Runs the map pass, then streams the reduce pass.
+     */
+    public Flux<ChatResponse> summarizeStream(List<String> chunks, String targetLength, String model) {
+        SchedulingContext context = SchedulingContext.current();
+        return map(chunks, targetLength, model, context, "streaming")
+                .flatMapMany(notes -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    try (SchedulingContext.Scope ignored = context.bind()) {
+                        return chatModel.stream(reducePrompt(notes, targetLength, model))
+                                .doFinally(signal -> sample.stop(stageTimer("reduce", "streaming", targetLength)));
+                    }
+                });
+    }
+
+    private Mono<String> map(List<String> chunks, String targetLength, String model,
+                             SchedulingContext context, String mode) {
+        AtomicLong start = new AtomicLong();
+        int total = chunks.size();
+        return Flux.range(0, total)
+                .flatMapSequential(i -> Mono.fromCallable(context.wrap(() -> summarizeChunk(chunks.get(i), i + 1, total, model)))
+                        .subscribeOn(Schedulers.boundedElastic()), concurrency)
+                .collectList()
+                .map(notes -> {
+                    StringBuilder joined = new StringBuilder();
+                    for (int i = 0; i < notes.size(); i++) {
+                        joined.append("Part ").append(i + 1).append(":\n").append(notes.get(i).trim()).append("\n\n");
+                    }
+                    return joined.toString().trim();
+                })
+                .doOnSubscribe(subscription -> start.set(System.nanoTime()))
+                .doOnSuccess(notes -> {
+                    long elapsed = System.nanoTime() - start.get();
+                    stageTimer("map", mode, targetLength).record(elapsed, TimeUnit.NANOSECONDS);
+                    logger.info("Map-reduce map stage done chunks={} targetLength={} latencyMs={}",
+                            total, targetLength, elapsed / 1_000_000);
+                });
+    }
+
+    private String summarizeChunk(String chunk, int part, int total, String model) {
+        String systemPrompt = String.format(
+                "You are summarizing part %d of %d of a longer article.\n" +
+                        "Write concise notes capturing the key facts, figures and arguments of this part.\n" +
+                        "Return only the notes.",
+                part, total
+        );
+        ChatResponse response = chatModel.call(new Prompt(List.of(
+                new SystemMessage(systemPrompt),
+                new UserMessage(chunk)
+        ), generationProfiles.options(model, GenerationProfiles.MAP, systemPrompt, chunk)));
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null
+                || response.getResult().getOutput().getText() == null) {
+            throw new IllegalStateException("Invalid response structure from AI model");
+        }
+        generationProfiles.record(GenerationProfiles.MAP, model, response);
+        return response.getResult().getOutput().getText();
+    }
+
+    private Prompt reducePrompt(String notes, String targetLength, String model) {
+        String systemPrompt = String.format(
+                "You are an expert technical writer. The following are notes on consecutive parts of one article.\n" +
+                        "Combine them into a single clear, concise summary of the whole article.\n" +
+                        "Target length: %s\n" +
+                        "Return only the summary text.",
+                targetLength
+        );
+        // Notes from many chunks can still overflow; keep the reduce prompt within budget too
+        String fittedNotes = promptBudget.fit(notes, model).text();
+        return new Prompt(List.of(
+                ExtractiveChatModel.systemMessage(systemPrompt, targetLength),
+                new UserMessage(fittedNotes)
+        ), generationProfiles.options(model, targetLength, systemPrompt, fittedNotes));
+    }
+
+    private Timer stageTimer(String stage, String mode, String targetLength) {
+        return Timer.builder("summarizer.stage.latency")
+                .description("Latency of individual map-reduce summarization stages")
+                .tag("stage", stage)
+                .tag("mode", mode)
+                .tag("targetLength", targetLength)
+                .register(meterRegistry);
+    }
+
+    private void splitSentences(String paragraph, TokenEstimator.Family family, int budget, List<String> chunks) {
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(paragraph);
+        int chunkStart = 0;
+        int currentTokens = 0;
+        for (int start = sentences.first(), end = sentences.next();
+             end != BreakIterator.DONE;
+             start = end, end = sentences.next()) {
+            int tokens = TokenEstimator.estimate(paragraph, start, end, family);
+            if (currentTokens > 0 && currentTokens + tokens > budget) {
+                chunks.add(paragraph.substring(chunkStart, start).trim());
+                chunkStart = start;
+                currentTokens = 0;
+            }
+            // A single sentence over budget is hard-cut proportionally
+            while (tokens > budget) {
+                int cut = start + (int) ((long) (end - start) * budget / tokens);
+                chunks.add(paragraph.substring(start, cut).trim());
+                start = cut;
+                chunkStart = cut;
+                tokens = TokenEstimator.estimate(paragraph, start, end, family);
+            }
+            currentTokens += tokens;
+        }
+        if (chunkStart < paragraph.length()) {
+            String tail = paragraph.substring(chunkStart).trim();
+            if (!tail.isEmpty()) {
+                chunks.add(tail);
+            }
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> chunks) {
+        String chunk = current.toString().trim();
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        current.setLength(0);
+    }
+}
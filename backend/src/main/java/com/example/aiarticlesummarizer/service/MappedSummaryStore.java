@@ -0,0 +1,151 @@
+package com.example.aiarticlesummarizer.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Ring log of cached summaries backed by a memory-mapped file.
+ * <p>
+ * Layout: a 16-byte header ({@code magic}, {@code writePos}) followed by records of
+ * {@code [marker:int][keyLen:short][valueLen:int][key][value]}. New records are appended at
+ * {@code writePos}; when the file is full the writer wraps to the start and evicts whatever
+ * records it overwrites (FIFO). On restart only the records before {@code writePos} are recovered.
+ */
+final class MappedSummaryStore implements Closeable {
+
+    private static final int MAGIC = 0x53554d31;          // "SUM1"
+    private static final int RECORD_MARKER = 0x52454331;  // "REC1"
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 4 + 2 + 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Integer> offsetsByKey = new HashMap<>();
+    private final NavigableMap<Integer, String> keysByOffset = new TreeMap<>();
+    private int writePos;
+
+    MappedSummaryStore(Path file, int capacity) throws IOException {
+        if (capacity <= HEADER_BYTES + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("Disk cache capacity too small: " + capacity);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.capacity = capacity;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        recover();
+    }
+
+    synchronized String get(String key) {
+        Integer offset = offsetsByKey.get(key);
+        if (offset == null) {
+            return null;
+        }
+        int keyLen = buffer.getShort(offset + 4);
+        int valueLen = buffer.getInt(offset + 6);
+        byte[] value = new byte[valueLen];
+        buffer.get(offset + RECORD_HEADER_BYTES + keyLen, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record and returns the number of older records evicted to make room for it.
+     */
+    synchronized int put(String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int recordLen = RECORD_HEADER_BYTES + keyBytes.length + valueBytes.length;
+        if (keyBytes.length > Short.MAX_VALUE || recordLen > capacity - HEADER_BYTES) {
+            return 0;
+        }
+
+        int evicted = 0;
+        if (writePos + recordLen > capacity) {
+            evicted += evictRange(writePos, capacity);
+            writePos = HEADER_BYTES;
+        }
+        evicted += evictRange(writePos, writePos + recordLen);
+
+        Integer previous = offsetsByKey.remove(key);
+        if (previous != null) {
+            keysByOffset.remove(previous);
+        }
+
+        buffer.putInt(writePos, RECORD_MARKER);
+        buffer.putShort(writePos + 4, (short) keyBytes.length);
+        buffer.putInt(writePos + 6, valueBytes.length);
+        buffer.put(writePos + RECORD_HEADER_BYTES, keyBytes);
+        buffer.put(writePos + RECORD_HEADER_BYTES + keyBytes.length, valueBytes);
+
+        offsetsByKey.put(key, writePos);
+        keysByOffset.put(writePos, key);
+        writePos += recordLen;
+        buffer.putLong(4, writePos);
+        return evicted;
+    }
+
+    synchronized int size() {
+        return offsetsByKey.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private int evictRange(int fromInclusive, int toExclusive) {
+        NavigableMap<Integer, String> overlapped = keysByOffset.subMap(fromInclusive, true, toExclusive, false);
+        int count = overlapped.size();
+        for (String key : overlapped.values()) {
+            offsetsByKey.remove(key);
+        }
+        overlapped.clear();
+        return count;
+    }
+
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(4, HEADER_BYTES);
+            writePos = HEADER_BYTES;
+            return;
+        }
+        long storedPos = buffer.getLong(4);
+        int end = (storedPos >= HEADER_BYTES && storedPos <= capacity) ? (int) storedPos : HEADER_BYTES;
+        int pos = HEADER_BYTES;
+        while (pos + RECORD_HEADER_BYTES <= end && buffer.getInt(pos) == RECORD_MARKER) {
+            int keyLen = buffer.getShort(pos + 4);
+            int valueLen = buffer.getInt(pos + 6);
+            int recordLen = RECORD_HEADER_BYTES + keyLen + valueLen;
+            if (keyLen <= 0 || valueLen < 0 || pos + recordLen > end) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLen];
+            buffer.get(pos + RECORD_HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            Integer previous = offsetsByKey.put(key, pos);
+            if (previous != null) {
+                keysByOffset.remove(previous);
+            }
+            keysByOffset.put(pos, key);
+            pos += recordLen;
+        }
+        writePos = pos;
+        buffer.putLong(4, writePos);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.config.RoutingProperties;
+import com.example.aiarticlesummarizer.llm.AdaptiveConcurrencyLimiter;
+import com.example.aiarticlesummarizer.llm.ModelResidencyManager;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the model for each request from the configured {@link RoutingProperties routes}: estimated
+ * input tokens, target length and current load (the admission queue's estimated wait). Also hands
+ * the routed models to {@link ModelResidencyManager} for startup warm-up, so the first routed
+ * request does not pay the load time.
+ */
+@Service
+public class ModelRouter {
+
+    public static final String DEFAULT_ROUTE = "default";
+
+    /** The chosen route: its name (for metrics) and the model to call. */
+    public record Route(String name, String model) {}
+
+    private final RoutingProperties properties;
+    private final PromptBudget promptBudget;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ModelResidencyManager residencyManager;
+    private final DemoModeService demoModeService;
+    private final MeterRegistry meterRegistry;
+    private final String defaultModel;
+
+    public ModelRouter(RoutingProperties properties,
+                       PromptBudget promptBudget,
+                       AdaptiveConcurrencyLimiter limiter,
+                       ModelResidencyManager residencyManager,
+                       DemoModeService demoModeService,
+                       MeterRegistry meterRegistry,
+                       @Value("${spring.ai.ollama.chat.options.model:llama3}") String defaultModel) {
+        this.properties = properties;
+        this.promptBudget = promptBudget;
+        this.limiter = limiter;
+        this.residencyManager = residencyManager;
+        this.demoModeService = demoModeService;
+        this.meterRegistry = meterRegistry;
+        this.defaultModel = defaultModel;
+    }
+
+    public Route route(String content, String targetLength) {
+        Route route = properties.isEnabled() ? firstMatch(content, targetLength, true) : null;
+        if (route == null) {
+            route = new Route(DEFAULT_ROUTE, defaultModel);
+        }
+        meterRegistry.counter("summarizer.route.requests", "route", route.name(), "model", route.model()).increment();
+        return route;
+    }
+
+    /**
+     * The route {@link #route} takes while the model queue is short, from input size and target length
+     * alone. Cached summaries are keyed on its model, so whether a request hits does not depend on load.
+     */
+    public Route primaryRoute(String content, String targetLength) {
+        Route route = properties.isEnabled() ? firstMatch(content, targetLength, false) : null;
+        return route != null ? route : new Route(DEFAULT_ROUTE, defaultModel);
+    }
+
+    private Route firstMatch(String content, String targetLength, boolean underLoad) {
+        double estimatedWait = -1;
+        for (RoutingProperties.Route candidate : properties.getRoutes()) {
+            if (candidate.getModel() == null || candidate.getModel().isBlank()) {
+                continue;
+            }
+            if (!candidate.getTargetLengths().isEmpty() && !candidate.getTargetLengths().contains(targetLength)) {
+                continue;
+            }
+            if (candidate.getMaxInputTokens() > 0
+                    && promptBudget.estimateTokens(content, candidate.getModel()) > candidate.getMaxInputTokens()) {
+                continue;
+            }
+            if (candidate.getMinEstimatedWaitSeconds() > 0) {
+                if (!underLoad) {
+                    continue;
+                }
+                if (estimatedWait < 0) {
+                    estimatedWait = limiter.estimatedWaitSeconds();
+                }
+                if (estimatedWait < candidate.getMinEstimatedWaitSeconds()) {
+                    continue;
+                }
+            }
+            String name = candidate.getName() != null ? candidate.getName() : candidate.getModel();
+            return new Route(name, candidate.getModel());
+        }
+        return null;
+    }
+
+    /**
+     * Records latency per route and, when the response carries Ollama's eval statistics,
+     * generation throughput.
+     */
+    public void record(Route route, long latencyMs, ChatResponse response) {
+        Timer.builder("summarizer.route.latency")
+                .description("Summarization latency per model route")
+                .tag("route", route.name())
+                .tag("model", route.model())
+                .register(meterRegistry)
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        Object evalCount = response.getMetadata().get("eval-count");
+        Object evalDuration = response.getMetadata().get("eval-duration");
+        if (evalCount instanceof Number count && evalDuration instanceof Duration duration && !duration.isZero()) {
+            DistributionSummary.builder("summarizer.route.tokens.per.second")
+                    .description("Generation throughput per model route")
+                    .tag("route", route.name())
+                    .tag("model", route.model())
+                    .register(meterRegistry)
+                    .record(count.doubleValue() / (duration.toNanos() / 1e9));
+        }
+    }
+
+    public List<String> routedModels() {
+        Set<String> models = new LinkedHashSet<>();
+        models.add(defaultModel);
+        for (RoutingProperties.Route route : properties.getRoutes()) {
+            if (route.getModel() != null && !route.getModel().isBlank()) {
+                models.add(route.getModel());
+            }
+        }
+        return List.copyOf(models);
+    }
+
+    /** Loads every routed model on every endpoint before the instance reports ready. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        residencyManager.warmUp(demoModeService.isDemoMode() ? List.of() : routedModels());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.llm.OllamaEndpointPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.BreakIterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes article text to the model's real context window instead of a fixed character count.
+ * <p>
+ * The context length is read once per model from Ollama's {@code /api/show} on a healthy endpoint
+ * and cached; a model that reports none is cached at {@code app.prompt.default-context-tokens}, and a
+ * failed lookup uses that default for {@code app.prompt.lookup-retry-ms} before asking again, so an
+ * outage does not add a blocking call to every budget check. The input
+ * budget is {@code app.prompt.context-fraction} of that window, capped at
+ * {@code app.prompt.max-context-tokens}, minus room reserved for the instructions and the output.
+ * Over-budget text is cut on a sentence boundary.
+ */
+@Service
+public class PromptBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptBudget.class);
+    private static final String TRUNCATION_MARKER = "... [truncated]";
+
+    /** Result of fitting content into the budget. */
+    public record Fitted(String text, int tokens, boolean truncated) {}
+
+    /** A looked-up context length; only defaults used after a failed lookup expire, at {@code retryAt}. */
+    private record ContextLength(int tokens, boolean expires, long retryAt) {}
+
+    private final OllamaEndpointPool endpointPool;
+    private final double contextFraction;
+    private final int maxContextTokens;
+    private final int defaultContextTokens;
+    private final int reservedTokens;
+    private final long lookupRetryNanos;
+    private final Map<String, ContextLength> contextLengths = new ConcurrentHashMap<>();
+
+    public PromptBudget(OllamaEndpointPool endpointPool,
+                        @Value("${app.prompt.context-fraction:0.75}") double contextFraction,
+                        @Value("${app.prompt.max-context-tokens:8192}") int maxContextTokens,
+                        @Value("${app.prompt.default-context-tokens:4096}") int defaultContextTokens,
+                        @Value("${app.prompt.reserved-tokens:768}") int reservedTokens,
+                        @Value("${app.prompt.lookup-retry-ms:30000}") long lookupRetryMs) {
+        this.endpointPool = endpointPool;
+        this.contextFraction = contextFraction;
+        this.maxContextTokens = maxContextTokens;
+        this.defaultContextTokens = defaultContextTokens;
+        this.reservedTokens = reservedTokens;
+        this.lookupRetryNanos = TimeUnit.MILLISECONDS.toNanos(lookupRetryMs);
+    }
+
+    /**
+     * Context window to request from Ollama for this model ({@code num_ctx}).
+     */
+    public int contextTokens(String model) {
+        return Math.min(contextLength(model), maxContextTokens);
+    }
+
+    /**
+     * Tokens available for article text in a single prompt.
+     */
+    public int inputBudget(String model) {
+        return Math.max(256, (int) (contextTokens(model) * contextFraction) - reservedTokens);
+    }
+
+    public int estimateTokens(CharSequence text, String model) {
+        return TokenEstimator.estimate(text, TokenEstimator.Family.of(model));
+    }
+
+    public boolean fits(String content, String model) {
+        return estimateTokens(content, model) <= inputBudget(model);
+    }
+
+    /**
+     * Returns the content unchanged if it fits, otherwise the longest sentence-aligned prefix that does.
+     */
+    public Fitted fit(String content, String model) {
+        return fit(content, model, inputBudget(model));
+    }
+
+    public Fitted fit(String content, String model, int budget) {
+        TokenEstimator.Family family = TokenEstimator.Family.of(model);
+        int total = TokenEstimator.estimate(content, family);
+        if (total <= budget) {
+            return new Fitted(content, total, false);
+        }
+
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(content);
+        int used = 0;
+        int cut = 0;
+        for (int start = sentences.first(), end = sentences.next();
+             end != BreakIterator.DONE;
+             start = end, end = sentences.next()) {
+            int tokens = TokenEstimator.estimate(content, start, end, family);
+            if (used + tokens > budget) {
+                break;
+            }
+            used += tokens;
+            cut = end;
+        }
+        if (cut == 0) {
+            // First sentence alone is over budget: fall back to a proportional character cut
+            cut = (int) ((long) content.length() * budget / Math.max(1, total));
+        }
+        return new Fitted(content.substring(0, cut).trim() + TRUNCATION_MARKER, used, true);
+    }
+
+    private int contextLength(String model) {
+        ContextLength cached = contextLengths.get(model);
+        if (cached != null && (!cached.expires() || System.nanoTime() - cached.retryAt() < 0)) {
+            return cached.tokens();
+        }
+        try {
+            OllamaApi api = endpointPool.metadataEndpoint().getApi();
+            Integer reported = extractContextLength(api.showModel(new OllamaApi.ShowModelRequest(model)));
+            int length = reported != null ? reported : defaultContextTokens;
+            logger.info("Model {} context length: {} tokens{}", model, length, reported != null ? "" : " (default, none reported)");
+            contextLengths.put(model, new ContextLength(length, false, 0));
+            return length;
+        } catch (Exception e) {
+            logger.warn("Could not read context length for model {} from Ollama, using default for {} ms: {}",
+                    model, TimeUnit.NANOSECONDS.toMillis(lookupRetryNanos), e.getMessage());
+            contextLengths.put(model, new ContextLength(defaultContextTokens, true, System.nanoTime() + lookupRetryNanos));
+            return defaultContextTokens;
+        }
+    }
+
+    private static Integer extractContextLength(OllamaApi.ShowModelResponse response) {
+        if (response == null || response.modelInfo() == null) {
+            return null;
+        }
+        // Keys are architecture-prefixed, e.g. "llama.context_length"
+        for (Map.Entry<String, Object> entry : response.modelInfo().entrySet()) {
+            if (entry.getKey().endsWith(".context_length") && entry.getValue() instanceof Number number) {
+                return number.intValue();
+            }
+        }
+        return null;
+    }
+}
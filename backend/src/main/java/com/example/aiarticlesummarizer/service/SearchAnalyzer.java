@@ -0,0 +1,93 @@
+package com.example.aiarticlesummarizer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns text into index terms for {@link SummarySearchIndex}: letters and digits split on everything
+ * else, lowercased, common English stopwords dropped and a light suffix-stripping stemmer applied, so
+ * "rates", "rated" and "rating" all index as "rat". Queries go through the same steps.
+ */
+final class SearchAnalyzer {
+
+    /** Longer runs (URLs, base64, hashes) are not useful search terms. */
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he",
+            "her", "his", "i", "if", "in", "into", "is", "it", "its", "of", "on", "or", "our", "she",
+            "so", "than", "that", "the", "their", "them", "then", "there", "these", "they", "this",
+            "to", "was", "we", "were", "will", "with", "you", "your");
+
+    /** A term, the lowercased word it was stemmed from, and where that word sits in the original text. */
+    record Token(String term, String word, int start, int end) {
+    }
+
+    private SearchAnalyzer() {
+    }
+
+    static List<Token> tokens(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start && i - start <= MAX_TOKEN_LENGTH) {
+                String word = text.substring(start, i).toLowerCase();
+                if (!STOPWORDS.contains(word)) {
+                    tokens.add(new Token(stem(word), word, start, i));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Strips plural and common inflectional suffixes. Not a full Porter stemmer: it only has to map a
+     * word and its usual variants to the same term, since documents and queries share it.
+     */
+    static String stem(String word) {
+        if (word.length() <= 3 || !Character.isLetter(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        String stem = word;
+        if (stem.endsWith("ies") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 3) + "y";
+        } else if (stem.endsWith("sses") || stem.endsWith("xes") || stem.endsWith("ches") || stem.endsWith("shes")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us") && !stem.endsWith("is")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        if (stem.endsWith("ing") && stem.length() > 5) {
+            stem = undouble(stem.substring(0, stem.length() - 3));
+        } else if (stem.endsWith("ed") && stem.length() > 4) {
+            stem = undouble(stem.substring(0, stem.length() - 2));
+        } else if (stem.endsWith("ly") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 2);
+        }
+        if (stem.endsWith("e") && stem.length() > 3) {
+            // "rate" and "rated" both become "rat"
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n > 3 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0
+                && Character.isLetter(stem.charAt(n - 1))) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical in-flight summarizations so concurrent requests for the same input share one
+ * upstream generation.
+ * <p>
+ * Blocking callers wait on the leader's result. Streaming callers subscribe to a single replaying
+ * {@link Flux}: every subscriber sees the full token sequence, late joiners first get the chunks
+ * already emitted. Flights are forgotten as soon as they terminate, so completed results are served
+ * by {@link SummaryCache} rather than kept here.
+ */
+@Component
+public class SingleFlight {
+
+    /** Work executed by the flight leader. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws IOException;
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Flux<?>> streams = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("summarizer.singleflight.inflight", calls, ConcurrentHashMap::size)
+                .description("Distinct in-flight summarizations")
+                .tag("mode", "blocking")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.singleflight.inflight", streams, ConcurrentHashMap::size)
+                .description("Distinct in-flight summarizations")
+                .tag("mode", "streaming")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the flight key for a request. URL requests are keyed on the URL so the page fetch is
+     * shared too; pasted text is keyed on its normalized content.
+     */
+    public static String key(String url, String content, String targetLength, String model) {
+        String input = (url != null && !url.isBlank()) ? "url\u0000" + url.trim() : "text\u0000" + content;
+        return SummaryCache.key(input, targetLength, model);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Work<T> work) throws IOException {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = calls.putIfAbsent(key, mine);
+        if (leader != null) {
+            meterRegistry.counter("summarizer.singleflight.joined", "mode", "blocking").increment();
+            return (T) await(leader);
+        }
+        try {
+            T result = work.run();
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /**
+     * Returns a shared stream for {@code key}. {@code source} must be lazy (e.g. wrapped in
+     * {@link Flux#defer}); it is only assembled and subscribed once per flight. The flight is
+     * cancelled when its last subscriber cancels, so abandoned streams stop consuming model time.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(String key, Supplier<Flux<T>> source) {
+        return Flux.defer(() -> {
+            AtomicReference<Flux<T>> created = new AtomicReference<>();
+            Flux<T> shared = (Flux<T>) streams.computeIfAbsent(key, k -> {
+                Flux<T> flight = source.get()
+                        .doFinally(signal -> streams.remove(k, created.get()))
+                        .replay()
+                        .refCount();
+                created.set(flight);
+                return flight;
+            });
+            if (created.get() == null) {
+                meterRegistry.counter("summarizer.singleflight.joined", "mode", "streaming").increment();
+            }
+            return shared;
+        });
+    }
+
+    private static Object await(CompletableFuture<Object> leader) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight summarization", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
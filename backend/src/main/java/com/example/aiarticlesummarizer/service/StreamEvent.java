@@ -0,0 +1,21 @@
+package com.example.aiarticlesummarizer.service;
+
+/**
+ * One server-sent event of a streamed summary: its SSE event name and data.
+ */
+public record StreamEvent(String name, String data) {
+
+    /** Incremental summary text from the model (or a replay of it). */
+    public static final String CHUNK = "chunk";
+
+    /** Extractive draft sent before the model's first token; replaced by the chunks that follow. */
+    public static final String DRAFT = "draft";
+
+    public static StreamEvent chunk(String text) {
+        return new StreamEvent(CHUNK, text);
+    }
+
+    public static StreamEvent draft(String text) {
+        return new StreamEvent(DRAFT, text);
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes streamed summaries resumable. Each stream gets an id and its events are numbered; they are
+ * kept in a bounded ring so a client that reconnects with {@code Last-Event-ID} continues from the
+ * next event, or receives the rest of a finished summary, without a new model call.
+ * <p>
+ * Generation runs independently of the connection: when the last client detaches it keeps going for
+ * {@code app.streaming.resume.grace-seconds} and is cancelled if nobody reattaches in time. Finished
+ * streams are kept for the same period. Retained text is capped per stream and in total
+ * ({@code summarizer.streaming.replay.bytes}); over the total cap finished streams are dropped first,
+ * then the oldest events of the stream that is growing.
+ */
+@Component
+public class StreamReplayBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamReplayBuffer.class);
+
+    /** Rough heap cost of one retained event besides its text. */
+    private static final int EVENT_OVERHEAD_BYTES = 64;
+
+    /** An event and its position in the stream, starting at 1. */
+    public record Sequenced(long seq, StreamEvent event) {
+    }
+
+    /** A stream and the id to resume it under; the id is null when resumption is disabled. */
+    public record Resumable(String streamId, Flux<Sequenced> events) {
+    }
+
+    /** Position named by an SSE event id, {@code <streamId>:<seq>}. */
+    public record Position(String streamId, long seq) {
+
+        /** The position in {@code lastEventId}, or null when it is not an id issued here. */
+        public static Position parse(String lastEventId) {
+            if (lastEventId == null) {
+                return null;
+            }
+            int separator = lastEventId.lastIndexOf(':');
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                long seq = Long.parseLong(lastEventId.substring(separator + 1).strip());
+                return seq >= 0 ? new Position(lastEventId.substring(0, separator).strip(), seq) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        public String eventId() {
+            return streamId + ":" + seq;
+        }
+    }
+
+    /** The stream has expired, or the requested events are no longer retained. */
+    public static class ResumeExpiredException extends RuntimeException {
+        public ResumeExpiredException() {
+            super("This summary stream can no longer be resumed. Please start the summary again.");
+        }
+    }
+
+    private final ConcurrentHashMap<String, ReplayStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long graceNanos;
+    private final long maxStreamBytes;
+    private final long maxBytes;
+
+    public StreamReplayBuffer(MeterRegistry meterRegistry,
+                              @Value("${app.streaming.resume.enabled:true}") boolean enabled,
+                              @Value("${app.streaming.resume.grace-seconds:60}") long graceSeconds,
+                              @Value("${app.streaming.resume.max-stream-bytes:262144}") long maxStreamBytes,
+                              @Value("${app.streaming.resume.max-bytes:33554432}") long maxBytes) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled && graceSeconds > 0;
+        this.graceNanos = TimeUnit.SECONDS.toNanos(graceSeconds);
+        this.maxStreamBytes = maxStreamBytes;
+        this.maxBytes = maxBytes;
+        Gauge.builder("summarizer.streaming.replay.bytes", totalBytes, AtomicLong::get)
+                .description("Estimated heap held by resumable stream buffers")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.streaming.replay.streams", streams, ConcurrentHashMap::size)
+                .description("Streams that can currently be resumed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers {@code events} as a resumable stream. The source is subscribed when the returned
+     * stream is first subscribed, and from then on only cancelled by {@link #expire()}.
+     */
+    public Resumable open(Flux<StreamEvent> events) {
+        if (!enabled) {
+            return new Resumable(null, events.index().map(indexed -> new Sequenced(indexed.getT1() + 1, indexed.getT2())));
+        }
+        ReplayStream stream = new ReplayStream(UUID.randomUUID().toString(), events);
+        streams.put(stream.id, stream);
+        return new Resumable(stream.id, stream.attach(0, false));
+    }
+
+    /**
+     * The events after {@code position}, then the live ones; fails with {@link ResumeExpiredException}
+     * when the stream or those events are gone.
+     */
+    public Flux<Sequenced> resume(Position position) {
+        ReplayStream stream = position != null ? streams.get(position.streamId()) : null;
+        if (stream == null) {
+            meterRegistry.counter("summarizer.streaming.resumed", "outcome", "expired").increment();
+            return Flux.error(new ResumeExpiredException());
+        }
+        return stream.attach(position.seq(), true);
+    }
+
+    /**
+     * Cancels generations nobody has reattached to within the grace period and drops finished
+     * streams older than it.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void expire() {
+        long now = System.nanoTime();
+        for (ReplayStream stream : streams.values()) {
+            if (!stream.listeners.isEmpty() || now - stream.idleSince < graceNanos) {
+                continue;
+            }
+            if (!stream.done) {
+                logger.info("Resumable stream abandoned streamId={} events={}", stream.id, stream.lastSeq());
+            }
+            stream.close();
+        }
+    }
+
+    /** Drops the finished stream idle the longest; false when there is none to drop. */
+    private boolean evictFinished() {
+        ReplayStream oldest = null;
+        for (ReplayStream stream : streams.values()) {
+            if (stream.done && stream.listeners.isEmpty() && (oldest == null || stream.idleSince < oldest.idleSince)) {
+                oldest = stream;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        oldest.close();
+        return true;
+    }
+
+    private static long size(Sequenced sequenced) {
+        String data = sequenced.event().data();
+        return EVENT_OVERHEAD_BYTES + (data != null ? 2L * data.length() : 0);
+    }
+
+    private final class ReplayStream {
+
+        final String id;
+        // Clients detach from container threads, so the listener list is read and updated without the lock
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        volatile boolean done;
+        volatile long idleSince = System.nanoTime();
+
+        private final Flux<StreamEvent> source;
+        private final ArrayDeque<Sequenced> ring = new ArrayDeque<>();
+        private long lastSeq;
+        private long bytes;
+        private Throwable error;
+        private boolean started;
+        private boolean closed;
+        private volatile Disposable generation;
+
+        ReplayStream(String id, Flux<StreamEvent> source) {
+            this.id = id;
+            this.source = source;
+        }
+
+        Flux<Sequenced> attach(long afterSeq, boolean resume) {
+            return Flux.create(sink -> {
+                Listener listener = new Listener(sink, afterSeq);
+                boolean start;
+                synchronized (this) {
+                    Sequenced first = ring.peekFirst();
+                    long oldest = first != null ? first.seq() : lastSeq + 1;
+                    if (closed || afterSeq + 1 < oldest || afterSeq > lastSeq) {
+                        meterRegistry.counter("summarizer.streaming.resumed", "outcome", "expired").increment();
+                        sink.error(new ResumeExpiredException());
+                        return;
+                    }
+                    if (resume) {
+                        meterRegistry.counter("summarizer.streaming.resumed", "outcome", done ? "completed" : "live").increment();
+                    }
+                    if (!done) {
+                        listeners.add(listener);
+                    }
+                    start = !started;
+                    started = true;
+                }
+                sink.onDispose(() -> detach(listener));
+                listener.drain();
+                if (start) {
+                    generation = source.subscribe(this::publish, this::fail, this::complete);
+                }
+            });
+        }
+
+        private void detach(Listener listener) {
+            if (listeners.remove(listener) && listeners.isEmpty()) {
+                idleSince = System.nanoTime();
+            }
+        }
+
+        private void publish(StreamEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                Sequenced sequenced = new Sequenced(++lastSeq, event);
+                ring.addLast(sequenced);
+                grow(size(sequenced));
+                // The newest event always stays so a client that is caught up can still resume
+                while (ring.size() > 1 && (bytes > maxStreamBytes || (totalBytes.get() > maxBytes && !evictFinished()))) {
+                    grow(-size(ring.removeFirst()));
+                }
+            }
+            // Sending writes to the client connection, so it happens outside the lock
+            listeners.forEach(Listener::drain);
+        }
+
+        private void complete() {
+            finish(null);
+        }
+
+        private void fail(Throwable failure) {
+            finish(failure);
+        }
+
+        private void finish(Throwable failure) {
+            synchronized (this) {
+                error = failure;
+                done = true;
+                idleSince = System.nanoTime();
+            }
+            listeners.forEach(Listener::drain);
+        }
+
+        synchronized long lastSeq() {
+            return lastSeq;
+        }
+
+        /** Cancels the generation if it is still running and releases the retained events. */
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Disposable running = generation;
+            if (!done && running != null) {
+                running.dispose();
+            }
+            streams.remove(id, this);
+            grow(-bytes);
+            ring.clear();
+        }
+
+        private void grow(long delta) {
+            bytes += delta;
+            totalBytes.addAndGet(delta);
+        }
+
+        /**
+         * One attached client. Events are copied from the ring under the lock and sent after it is
+         * released; whichever thread gets to {@link #drain()} first sends for all, in order.
+         */
+        private final class Listener {
+
+            private final FluxSink<Sequenced> sink;
+            private final AtomicInteger wip = new AtomicInteger();
+            /** Last event sent; only read and written by the thread draining. */
+            private long delivered;
+
+            Listener(FluxSink<Sequenced> sink, long afterSeq) {
+                this.sink = sink;
+                this.delivered = afterSeq;
+            }
+
+            void drain() {
+                if (wip.getAndIncrement() != 0) {
+                    return;
+                }
+                int missed = 1;
+                do {
+                    List<Sequenced> pending = new ArrayList<>();
+                    boolean lost;
+                    boolean finished;
+                    Throwable failure;
+                    synchronized (ReplayStream.this) {
+                        for (Iterator<Sequenced> it = ring.descendingIterator(); it.hasNext(); ) {
+                            Sequenced sequenced = it.next();
+                            if (sequenced.seq() <= delivered) {
+                                break;
+                            }
+                            pending.add(sequenced);
+                        }
+                        long next = pending.isEmpty() ? lastSeq + 1 : pending.get(pending.size() - 1).seq();
+                        // Events this client had not been sent yet were dropped over the byte cap
+                        lost = !closed && next > delivered + 1;
+                        finished = done;
+                        failure = error;
+                    }
+                    if (lost) {
+                        // Leaves wip raised: nothing more is sent to this client
+                        sink.error(new ResumeExpiredException());
+                        return;
+                    }
+                    for (int i = pending.size() - 1; i >= 0; i--) {
+                        sink.next(pending.get(i));
+                        delivered = pending.get(i).seq();
+                    }
+                    if (finished) {
+                        if (failure != null) {
+                            sink.error(failure);
+                        } else {
+                            sink.complete();
+                        }
+                        return;
+                    }
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            }
+        }
+    }
+}
@@ -1,25 +1,31 @@
 package com.example.aiarticlesummarizer.service;
 
 import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.llm.ExtractiveChatModel;
+import com.example.aiarticlesummarizer.llm.ModelLabel;
 import com.example.aiarticlesummarizer.model.Summary;
-import com.example.aiarticlesummarizer.repository.SummaryRepository;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -30,24 +36,63 @@ public class StreamingSummarizationService {
 
     private final ChatModel chatModel;
     private final UrlFetchingService urlFetchingService;
-    private final SummaryRepository summaryRepository;
+    private final SummaryWriteBehind summaryWriteBehind;
     private final MeterRegistry meterRegistry;
     private final DemoModeService demoModeService;
+    private final SummaryCache summaryCache;
+    private final SingleFlight singleFlight;
+    private final MapReduceSummarizer mapReduceSummarizer;
+    private final PromptBudget promptBudget;
+    private final ModelRouter modelRouter;
+    private final GenerationProfiles generationProfiles;
+    private final ExtractiveCompressor extractiveCompressor;
+    private final InstantSummarizer instantSummarizer;
+    private final SummaryDerivation summaryDerivation;
+    private final String modelName;
+    private final boolean storeCancelled;
 
     public StreamingSummarizationService(ChatModel chatModel,
                                          UrlFetchingService urlFetchingService,
-                                         SummaryRepository summaryRepository,
+                                         SummaryWriteBehind summaryWriteBehind,
                                          MeterRegistry meterRegistry,
-                                         DemoModeService demoModeService) {
+                                         DemoModeService demoModeService,
+                                         SummaryCache summaryCache,
+                                         SingleFlight singleFlight,
+                                         MapReduceSummarizer mapReduceSummarizer,
+                                         PromptBudget promptBudget,
+                                         ModelRouter modelRouter,
+                                         GenerationProfiles generationProfiles,
+                                         ExtractiveCompressor extractiveCompressor,
+                                         InstantSummarizer instantSummarizer,
+                                         SummaryDerivation summaryDerivation,
+                                         @Value("${spring.ai.ollama.chat.options.model:llama3}") String modelName,
+                                         @Value("${app.streaming.on-cancel:drop}") String onCancel) {
         this.chatModel = chatModel;
         this.urlFetchingService = urlFetchingService;
-        this.summaryRepository = summaryRepository;
+        this.summaryWriteBehind = summaryWriteBehind;
         this.meterRegistry = meterRegistry;
         this.demoModeService = demoModeService;
+        this.summaryCache = summaryCache;
+        this.singleFlight = singleFlight;
+        this.mapReduceSummarizer = mapReduceSummarizer;
+        this.promptBudget = promptBudget;
+        this.modelRouter = modelRouter;
+        this.generationProfiles = generationProfiles;
+        this.extractiveCompressor = extractiveCompressor;
+        this.instantSummarizer = instantSummarizer;
+        this.summaryDerivation = summaryDerivation;
+        this.modelName = modelName;
+        this.storeCancelled = "store".equalsIgnoreCase(onCancel);
     }
 
-    @Transactional
-    public Flux<String> summarizeStream(SummarizeRequest request) throws IOException {
+    /**
+     * Streams a summary as {@code chunk} events. With {@code draft}, an extractive draft event is sent
+     * first, computed while the model is still evaluating the prompt.
+     * <p>
+     * Not transactional: the returned stream outlives this call, and the lookups and final insert each
+     * use their own short transaction.
+     */
+    public Flux<StreamEvent> summarizeStream(SummarizeRequest request, boolean draft) throws IOException {
         if (demoModeService.isDemoMode()) {
             return summarizeStreamDemo(request);
         }
@@ -57,30 +102,73 @@ public class StreamingSummarizationService {
                 .fromString(requestedTargetLength)
                 .getValue();
 
+        // Identical concurrent requests share one upstream generation; late joiners get a replay
+        String flightKey = SingleFlight.key(request.getUrl(), request.getContent(), targetLength,
+                draft ? modelName + "+draft" : modelName);
+        return singleFlight.stream(flightKey, () -> Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                return recordFirstByte(summarizeStreamUncoalesced(request, targetLength, draft, startNanos),
+                        startNanos, targetLength, draft);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+        }));
+    }
+
+    private Flux<StreamEvent> summarizeStreamUncoalesced(SummarizeRequest request, String targetLength,
+                                                         boolean draft, long startNanos) throws IOException {
         // Handle URL fetching if URL is provided
         final String sourceUrl = request.getUrl();
         final String articleTitle;
-        final String content;
-
+        final String fetchedContent;
         if (sourceUrl != null && !sourceUrl.isBlank()) {
-            // Fetch content from URL
-            String fetchedContent = urlFetchingService.fetchArticleContent(sourceUrl);
-            articleTitle = urlFetchingService.fetchArticleTitle(sourceUrl);
-            // Truncate content if too long (to prevent token limits)
-            content = fetchedContent.length() > 8000 
-                    ? fetchedContent.substring(0, 8000) + "... [truncated]"
-                    : fetchedContent;
+            // Fetch the page once; content and title both come from it
+            Document document = urlFetchingService.fetchDocument(sourceUrl);
+            fetchedContent = urlFetchingService.extractArticleContent(document, sourceUrl);
+            articleTitle = urlFetchingService.extractArticleTitle(document);
         } else {
             // Use provided content
-            String providedContent = Objects.requireNonNull(request.getContent(), "content must not be null");
+            fetchedContent = Objects.requireNonNull(request.getContent(), "content must not be null");
             articleTitle = null;
-            // Truncate content if too long (to prevent token limits)
-            content = providedContent.length() > 8000 
-                    ? providedContent.substring(0, 8000) + "... [truncated]"
-                    : providedContent;
+        }
+
+        final String sourceKey = SummaryDerivation.sourceKey(sourceUrl, fetchedContent);
+
+        // Extractive answer when asked for
+        boolean instant = InstantSummarizer.isInstant(targetLength);
+        if (instant) {
+            return streamInstant(fetchedContent, sourceUrl, sourceKey, articleTitle, targetLength, false);
         }
 
         final String source = (sourceUrl != null && !sourceUrl.isBlank()) ? "url" : "text";
+
+        // Looked up on the article as fetched, under the route taken without load: a hit skips
+        // compression, routing and budgeting, and does not depend on how long the queue is
+        final ModelRouter.Route primary = modelRouter.primaryRoute(fetchedContent, targetLength);
+        final String cacheKey = SummaryCache.key(fetchedContent, targetLength, primary.model());
+        String cached = summaryCache.get(cacheKey).orElse(null);
+        if (cached != null) {
+            return replayCached(cached, fetchedContent, sourceUrl, sourceKey, articleTitle, targetLength, primary.model(), source);
+        }
+
+        // Extractive answer when the model queue is too long to wait on
+        if (instantSummarizer.shouldFallBack()) {
+            return streamInstant(fetchedContent, sourceUrl, sourceKey, articleTitle, targetLength, true);
+        }
+
+        // Drop redundant sentences first: prompt evaluation time grows with input length.
+        // Only the prompt is shortened; the article as fetched is what gets saved.
+        final String rawContent = extractiveCompressor.compress(fetchedContent).text();
+
+        // Model per request from input size, target length and load
+        final ModelRouter.Route route = modelRouter.route(rawContent, targetLength);
+        final String routedModel = route.model();
+
+        // Long articles go through map-reduce; otherwise cut to the model's token budget
+        final boolean hierarchical = mapReduceSummarizer.shouldSplit(rawContent, routedModel);
+        final String promptText = hierarchical ? rawContent : promptBudget.fit(rawContent, routedModel).text();
+
         Timer.Sample sample = Timer.start(meterRegistry);
 
         // Build the prompt
@@ -92,18 +180,32 @@ public class StreamingSummarizationService {
         );
 
         Prompt prompt = new Prompt(List.of(
-                new SystemMessage(systemPrompt),
-                new UserMessage(content)
-        ));
+                ExtractiveChatModel.systemMessage(systemPrompt, targetLength),
+                new UserMessage(promptText)
+        ), generationProfiles.options(routedModel, targetLength, systemPrompt, promptText));
 
         // Stream the response
         AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
         AtomicReference<StringBuilder> fullSummary = new AtomicReference<>(new StringBuilder());
-        final String finalContent = content;
+        AtomicReference<ChatResponse> lastResponse = new AtomicReference<>();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        AtomicLong firstTokenNanos = new AtomicLong();
+        AtomicInteger tokens = new AtomicInteger();
         final String finalArticleTitle = articleTitle;
         final String finalSourceUrl = sourceUrl;
 
-        return chatModel.stream(prompt)
+        // A longer summary of the same source is a far smaller prompt than the article
+        final Summary longer = summaryDerivation.findLonger(sourceKey, targetLength).orElse(null);
+        Flux<ChatResponse> upstream;
+        if (longer != null) {
+            upstream = chatModel.stream(summaryDerivation.prompt(longer, targetLength, routedModel));
+        } else if (hierarchical) {
+            upstream = mapReduceSummarizer.summarizeStream(mapReduceSummarizer.split(promptText, routedModel), targetLength, routedModel);
+        } else {
+            upstream = chatModel.stream(prompt);
+        }
+
+        Flux<StreamEvent> generated = upstream
                 .doOnSubscribe(subscription -> {
                     startTime.set(System.currentTimeMillis());
                     meterRegistry.counter("summarizer.streaming.requests.total",
@@ -111,38 +213,51 @@ public class StreamingSummarizationService {
                             "targetLength", targetLength).increment();
                 })
                 .map(response -> {
+                    lastResponse.set(response);
                     if (response.getResult() != null && response.getResult().getOutput() != null) {
                         String chunk = response.getResult().getOutput().getText();
                         if (chunk != null) {
+                            if (!chunk.isEmpty() && firstToken.compareAndSet(true, false)) {
+                                firstTokenNanos.set(System.nanoTime());
+                                Timer.builder("summarizer.streaming.first.token")
+                                        .description("Time from request to the first model token (includes fetch, queueing and prompt evaluation)")
+                                        .tag("targetLength", targetLength)
+                                        .tag("route", route.name())
+                                        .publishPercentileHistogram()
+                                        .register(meterRegistry)
+                                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                            }
                             fullSummary.get().append(chunk);
+                            if (!chunk.isEmpty()) {
+                                tokens.incrementAndGet();
+                            }
                             return chunk;
                         }
                     }
                     return "";
                 })
                 .filter(chunk -> !chunk.isEmpty())
+                .map(StreamEvent::chunk)
                 .doOnComplete(() -> {
                     // Save summary to database after streaming completes
                     try {
                         long latency = System.currentTimeMillis() - startTime.get();
-                        String model = "ollama";
                         String completeSummary = fullSummary.get().toString();
-
-                        Summary summaryEntity = new Summary();
-                        summaryEntity.setOriginalContent(finalContent);
-                        summaryEntity.setSummary(completeSummary);
-                        summaryEntity.setSourceUrl(finalSourceUrl);
-                        summaryEntity.setArticleTitle(finalArticleTitle);
-                        summaryEntity.setTargetLength(targetLength);
-                        summaryEntity.setModel(model);
-                        summaryEntity.setLatencyMs(latency);
-                        summaryEntity.setCreatedAt(LocalDateTime.now());
-
-                        summaryRepository.save(summaryEntity);
-                        logger.info("Streaming summarization success source={} targetLength={} latencyMs={} urlDomain={} hasUrl={}",
+                        // The final chunk carries the model that actually answered (e.g. a fallback)
+                        String model = ModelLabel.of(lastResponse.get(), routedModel);
+                        if (!ModelLabel.isDegraded(lastResponse.get()) && routedModel.equals(primary.model())) {
+                            summaryCache.put(cacheKey, completeSummary);
+                        }
+                        modelRouter.record(route, latency, lastResponse.get());
+                        generationProfiles.record(targetLength, model, lastResponse.get());
+                        saveSummary(fetchedContent, completeSummary, finalSourceUrl, sourceKey, finalArticleTitle, targetLength, model, latency);
+                        logger.info("Streaming summarization success source={} targetLength={} route={} model={} latencyMs={} derived={} urlDomain={} hasUrl={}",
                                 source,
                                 targetLength,
+                                route.name(),
+                                model,
                                 latency,
+                                longer != null,
                                 extractDomain(finalSourceUrl),
                                 finalSourceUrl != null && !finalSourceUrl.isBlank());
                     } catch (Exception e) {
@@ -163,8 +278,26 @@ public class StreamingSummarizationService {
                             errorType,
                             ex.getMessage());
                 })
+                .doOnCancel(() -> {
+                    // Every subscriber is gone; cancelling closes the Ollama connection, which stops the generation
+                    long latency = System.currentTimeMillis() - startTime.get();
+                    recordCancelled(route, targetLength, source, tokens.get(), firstTokenNanos.get(), latency);
+                    String partial = fullSummary.get().toString();
+                    if (storeCancelled && !partial.isBlank()) {
+                        try {
+                            saveSummary(fetchedContent, partial, finalSourceUrl, sourceKey, finalArticleTitle, targetLength,
+                                    ModelLabel.of(lastResponse.get(), routedModel), latency, Summary.STATUS_CANCELLED);
+                        } catch (Exception e) {
+                            logger.warn("Error saving cancelled summary: {}", e.getMessage(), e);
+                        }
+                    }
+                })
                 .doFinally(signalType -> {
-                    String status = (signalType == SignalType.ON_COMPLETE) ? "success" : "error";
+                    String status = switch (signalType) {
+                        case ON_COMPLETE -> "success";
+                        case CANCEL -> "cancelled";
+                        default -> "error";
+                    };
                     sample.stop(Timer.builder("summarizer.streaming.latency")
                             .description("End-to-end latency for streaming summarization requests")
                             .tag("source", source)
@@ -172,6 +305,151 @@ public class StreamingSummarizationService {
                             .tag("status", status)
                             .register(meterRegistry));
                 });
+
+        if (!draft) {
+            return generated;
+        }
+        // Both sources are subscribed at once, so the draft is ranked while the model evaluates the
+        // prompt; model chunks are held back until the draft has been emitted.
+        Mono<StreamEvent> draftEvent = Mono.fromCallable(() -> StreamEvent.draft(instantSummarizer.draft(fetchedContent, targetLength)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    logger.warn("Draft summary failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+        return Flux.mergeSequential(draftEvent, generated);
+    }
+
+    /**
+     * Records time until the first event of any kind (draft, chunk or replay) leaves the service.
+     */
+    private Flux<StreamEvent> recordFirstByte(Flux<StreamEvent> events, long startNanos, String targetLength, boolean draft) {
+        AtomicBoolean first = new AtomicBoolean(true);
+        return events.doOnNext(event -> {
+            if (first.compareAndSet(true, false)) {
+                Timer.builder("summarizer.streaming.ttfb")
+                        .description("Time from request to the first streamed event")
+                        .tag("targetLength", targetLength)
+                        .tag("draft", String.valueOf(draft))
+                        .tag("event", event.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Replays a cached summary as word-sized chunks so the SSE client sees the same event shape
+     * as a live generation, just without waiting on the model.
+     */
+    private Flux<StreamEvent> replayCached(String cached, String content, String sourceUrl, String sourceKey, String articleTitle,
+                                           String targetLength, String model, String source) {
+        long start = System.currentTimeMillis();
+        return Flux.fromArray(cached.split("(?<=\\s)"))
+                .filter(chunk -> !chunk.isEmpty())
+                .map(StreamEvent::chunk)
+                .doOnComplete(() -> {
+                    try {
+                        long latency = System.currentTimeMillis() - start;
+                        saveSummary(content, cached, sourceUrl, sourceKey, articleTitle, targetLength, model, latency);
+                        meterRegistry.counter("summarizer.streaming.requests.total",
+                                "source", source,
+                                "targetLength", targetLength).increment();
+                        logger.info("Streaming summarization cache hit source={} targetLength={} latencyMs={} urlDomain={}",
+                                source,
+                                targetLength,
+                                latency,
+                                extractDomain(sourceUrl));
+                    } catch (Exception e) {
+                        logger.warn("Error saving cached streamed summary: {}", e.getMessage(), e);
+                    }
+                });
+    }
+
+    /**
+     * Emits an in-process extractive summary in the same chunk shape as a model stream.
+     */
+    private Flux<StreamEvent> streamInstant(String content, String sourceUrl, String sourceKey, String articleTitle,
+                                            String targetLength, boolean overload) {
+        String source = (sourceUrl != null && !sourceUrl.isBlank()) ? "url" : "text";
+        return Flux.defer(() -> {
+            long start = System.currentTimeMillis();
+            InstantSummarizer.Result result = instantSummarizer.summarize(content, targetLength, overload);
+            return Flux.fromArray(result.summary().split("(?<=\\s)"))
+                    .filter(chunk -> !chunk.isEmpty())
+                    .map(StreamEvent::chunk)
+                    .doOnComplete(() -> {
+                        try {
+                            long latency = System.currentTimeMillis() - start;
+                            saveSummary(content, result.summary(), sourceUrl, sourceKey, articleTitle, targetLength, result.model(), latency);
+                            meterRegistry.counter("summarizer.streaming.requests.total",
+                                    "source", source,
+                                    "targetLength", targetLength).increment();
+                            logger.info("Streaming summarization success source={} targetLength={} route=instant model={} latencyMs={} overload={} urlDomain={} hasUrl={}",
+                                    source,
+                                    targetLength,
+                                    result.model(),
+                                    latency,
+                                    overload,
+                                    extractDomain(sourceUrl),
+                                    sourceUrl != null && !sourceUrl.isBlank());
+                        } catch (Exception e) {
+                            logger.warn("Error saving instant streamed summary: {}", e.getMessage(), e);
+                        }
+                    });
+        });
+    }
+
+    private void saveSummary(String content, String summary, String sourceUrl, String sourceKey, String articleTitle,
+                             String targetLength, String model, long latency) {
+        saveSummary(content, summary, sourceUrl, sourceKey, articleTitle, targetLength, model, latency, Summary.STATUS_COMPLETED);
+    }
+
+    private void saveSummary(String content, String summary, String sourceUrl, String sourceKey, String articleTitle,
+                             String targetLength, String model, long latency, String status) {
+        Summary summaryEntity = new Summary();
+        summaryEntity.setOriginalContent(content);
+        summaryEntity.setSummary(summary);
+        summaryEntity.setSourceUrl(sourceUrl);
+        summaryEntity.setSourceKey(sourceKey);
+        summaryEntity.setArticleTitle(articleTitle);
+        summaryEntity.setTargetLength(targetLength);
+        summaryEntity.setModel(model);
+        summaryEntity.setLatencyMs(latency);
+        summaryEntity.setStatus(status);
+        summaryEntity.setCreatedAt(LocalDateTime.now());
+        summaryWriteBehind.enqueue(summaryEntity);
+    }
+
+    /**
+     * Counts a generation abandoned by its client and estimates the model time saved: the tokens the
+     * profile still allowed, at the rate this stream was generating. Nothing is estimated when the
+     * client left before the first token, as there is no rate to go on.
+     */
+    private void recordCancelled(ModelRouter.Route route, String targetLength, String source,
+                                 int tokens, long firstTokenNanos, long latencyMs) {
+        String stage = tokens == 0 ? "before_first_token" : "generating";
+        meterRegistry.counter("summarizer.streaming.cancelled",
+                "targetLength", targetLength,
+                "stage", stage).increment();
+        double reclaimedSeconds = 0;
+        int maxTokens = generationProfiles.maxTokens(targetLength);
+        if (tokens > 1 && maxTokens > tokens) {
+            double secondsPerToken = (System.nanoTime() - firstTokenNanos) / 1e9 / (tokens - 1);
+            reclaimedSeconds = (maxTokens - tokens) * secondsPerToken;
+            meterRegistry.counter("summarizer.streaming.cancelled.reclaimed.seconds",
+                    "targetLength", targetLength,
+                    "model", route.model()).increment(reclaimedSeconds);
+        }
+        logger.info("Streaming summarization cancelled source={} targetLength={} route={} stage={} tokens={} latencyMs={} reclaimedSeconds={}",
+                source,
+                targetLength,
+                route.name(),
+                stage,
+                tokens,
+                latencyMs,
+                String.format("%.1f", reclaimedSeconds));
     }
 
     private String classifyError(Throwable ex) {
@@ -207,7 +485,7 @@ public class StreamingSummarizationService {
         }
     }
 
-    private Flux<String> summarizeStreamDemo(SummarizeRequest request) throws IOException {
+    private Flux<StreamEvent> summarizeStreamDemo(SummarizeRequest request) throws IOException {
         String requestedTargetLength = request.getTargetLength();
         final String targetLength = com.example.aiarticlesummarizer.api.dto.TargetLength
                 .fromString(requestedTargetLength)
@@ -221,6 +499,7 @@ public class StreamingSummarizationService {
                 : Objects.requireNonNull(request.getContent(), "content must not be null");
 
         return demoModeService.streamMockSummary(targetLength)
+                .map(StreamEvent::chunk)
                 .doOnComplete(() -> {
                     try {
                         String completeSummary = demoModeService.getMockSummary(targetLength);
@@ -231,9 +510,9 @@ public class StreamingSummarizationService {
                         summaryEntity.setArticleTitle(finalArticleTitle);
                         summaryEntity.setTargetLength(targetLength);
                         summaryEntity.setModel("demo");
-                        summaryEntity.setLatencyMs(200);
+                        summaryEntity.setLatencyMs(200L);
                         summaryEntity.setCreatedAt(LocalDateTime.now());
-                        summaryRepository.save(summaryEntity);
+                        summaryWriteBehind.enqueue(summaryEntity);
                     } catch (Exception e) {
                         logger.warn("Error saving demo streamed summary: {}", e.getMessage());
                     }
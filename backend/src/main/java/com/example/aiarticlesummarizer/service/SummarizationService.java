@@ -2,19 +2,20 @@ package com.example.aiarticlesummarizer.service;
 
 import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
 import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.llm.ExtractiveChatModel;
+import com.example.aiarticlesummarizer.llm.ModelLabel;
 import com.example.aiarticlesummarizer.model.Summary;
-import com.example.aiarticlesummarizer.repository.SummaryRepository;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.net.URI;
@@ -30,23 +31,56 @@ public class SummarizationService {
 
     private final ChatModel chatModel;
     private final UrlFetchingService urlFetchingService;
-    private final SummaryRepository summaryRepository;
+    private final SummaryWriteBehind summaryWriteBehind;
     private final MeterRegistry meterRegistry;
     private final DemoModeService demoModeService;
+    private final SummaryCache summaryCache;
+    private final SingleFlight singleFlight;
+    private final MapReduceSummarizer mapReduceSummarizer;
+    private final PromptBudget promptBudget;
+    private final ModelRouter modelRouter;
+    private final GenerationProfiles generationProfiles;
+    private final ExtractiveCompressor extractiveCompressor;
+    private final InstantSummarizer instantSummarizer;
+    private final SummaryDerivation summaryDerivation;
+    private final String modelName;
 
     public SummarizationService(ChatModel chatModel,
                                 UrlFetchingService urlFetchingService,
-                                SummaryRepository summaryRepository,
+                                SummaryWriteBehind summaryWriteBehind,
                                 MeterRegistry meterRegistry,
-                                DemoModeService demoModeService) {
+                                DemoModeService demoModeService,
+                                SummaryCache summaryCache,
+                                SingleFlight singleFlight,
+                                MapReduceSummarizer mapReduceSummarizer,
+                                PromptBudget promptBudget,
+                                ModelRouter modelRouter,
+                                GenerationProfiles generationProfiles,
+                                ExtractiveCompressor extractiveCompressor,
+                                InstantSummarizer instantSummarizer,
+                                SummaryDerivation summaryDerivation,
+                                @Value("${spring.ai.ollama.chat.options.model:llama3}") String modelName) {
         this.chatModel = chatModel;
         this.urlFetchingService = urlFetchingService;
-        this.summaryRepository = summaryRepository;
+        this.summaryWriteBehind = summaryWriteBehind;
         this.meterRegistry = meterRegistry;
         this.demoModeService = demoModeService;
+        this.summaryCache = summaryCache;
+        this.singleFlight = singleFlight;
+        this.mapReduceSummarizer = mapReduceSummarizer;
+        this.promptBudget = promptBudget;
+        this.modelRouter = modelRouter;
+        this.generationProfiles = generationProfiles;
+        this.extractiveCompressor = extractiveCompressor;
+        this.instantSummarizer = instantSummarizer;
+        this.summaryDerivation = summaryDerivation;
+        this.modelName = modelName;
     }
 
-    @Transactional
+    /**
+     * Fetches, generates and persists a summary. Deliberately not transactional: the URL fetch and the
+     * model call can take minutes, and only the short reads and the final insert touch the database.
+     */
     public SummarizeResponse summarize(SummarizeRequest request) throws IOException {
         if (demoModeService.isDemoMode()) {
             return summarizeDemo(request);
@@ -57,73 +91,120 @@ public class SummarizationService {
                 .fromString(requestedTargetLength)
                 .getValue();
 
+        // Identical concurrent requests share one fetch + generation and one persisted row
+        String flightKey = SingleFlight.key(request.getUrl(), request.getContent(), targetLength, modelName);
+        return singleFlight.execute(flightKey, () -> summarizeUncoalesced(request, targetLength));
+    }
+
+    private SummarizeResponse summarizeUncoalesced(SummarizeRequest request, String targetLength) throws IOException {
         // Handle URL fetching if URL is provided
         String content;
         String sourceUrl = request.getUrl();
         String articleTitle = null;
 
-        final String source = (sourceUrl != null && !sourceUrl.isBlank()) ? "url" : "text";
         Timer.Sample sample = Timer.start(meterRegistry);
 
         if (sourceUrl != null && !sourceUrl.isBlank()) {
-            // Fetch content from URL
-            content = urlFetchingService.fetchArticleContent(sourceUrl);
-            articleTitle = urlFetchingService.fetchArticleTitle(sourceUrl);
+            // Fetch the page once; content and title both come from it
+            Document document = urlFetchingService.fetchDocument(sourceUrl);
+            content = urlFetchingService.extractArticleContent(document, sourceUrl);
+            articleTitle = urlFetchingService.extractArticleTitle(document);
         } else {
             // Use provided content
             content = Objects.requireNonNull(request.getContent(), "content must not be null");
         }
 
-        // Truncate content if too long (to prevent token limits)
-        if (content.length() > 8000) {
-            content = content.substring(0, 8000) + "... [truncated]";
+        return summarizeFetched(content, sourceUrl, articleTitle, targetLength, sample);
+    }
+
+    /**
+     * Summarizes content that has already been fetched and extracted, e.g. by the batch pipeline.
+     * Goes through the same cache, budgeting, metrics and persistence as {@link #summarize}.
+     */
+    public SummarizeResponse summarizeFetched(String content, String sourceUrl, String articleTitle,
+                                              String requestedTargetLength) {
+        String targetLength = com.example.aiarticlesummarizer.api.dto.TargetLength
+                .fromString(requestedTargetLength)
+                .getValue();
+        return summarizeFetched(content, sourceUrl, articleTitle, targetLength, Timer.start(meterRegistry));
+    }
+
+    private SummarizeResponse summarizeFetched(String content, String sourceUrl, String articleTitle,
+                                               String targetLength, Timer.Sample sample) {
+        final String source = (sourceUrl != null && !sourceUrl.isBlank()) ? "url" : "text";
+        final String sourceKey = SummaryDerivation.sourceKey(sourceUrl, content);
+
+        // Extractive answer when asked for
+        boolean instant = InstantSummarizer.isInstant(targetLength);
+        if (instant) {
+            return summarizeInstant(content, sourceUrl, sourceKey, articleTitle, targetLength, source, false, sample);
+        }
+
+        // Looked up on the article as fetched, under the route taken without load: a hit skips
+        // compression, routing and budgeting, and does not depend on how long the queue is
+        ModelRouter.Route primary = modelRouter.primaryRoute(content, targetLength);
+        String cacheKey = SummaryCache.key(content, targetLength, primary.model());
+        String summary = summaryCache.get(cacheKey).orElse(null);
+        boolean cacheHit = summary != null;
+
+        // Extractive answer when the model queue is too long to wait on
+        if (!cacheHit && instantSummarizer.shouldFallBack()) {
+            return summarizeInstant(content, sourceUrl, sourceKey, articleTitle, targetLength, source, true, sample);
         }
 
+        String promptText = content;
+        ModelRouter.Route route = primary;
+        boolean hierarchical = false;
+        if (!cacheHit) {
+            // Drop redundant sentences first: prompt evaluation time grows with input length.
+            // Only the prompt is shortened; the article as fetched is what gets saved.
+            promptText = extractiveCompressor.compress(content).text();
+
+            // Model per request from input size, target length and load
+            route = modelRouter.route(promptText, targetLength);
+
+            // Long articles go through map-reduce; otherwise cut to the model's token budget
+            hierarchical = mapReduceSummarizer.shouldSplit(promptText, route.model());
+            if (!hierarchical) {
+                promptText = promptBudget.fit(promptText, route.model()).text();
+            }
+        }
+        String routedModel = route.model();
+
         long start = System.currentTimeMillis();
 
         try {
-            // Build the prompt with system and user messages
-            // targetLength is now guaranteed to be one of: "short", "medium", "long"
-            String systemPrompt = String.format(
-                    "You are an expert technical writer. Summarize the following article in a clear, concise way.\n" +
-                            "Target length: %s\n" +
-                            "Return only the summary text.",
-                    targetLength
-            );
-
-            Prompt prompt = new Prompt(List.of(
-                    new SystemMessage(systemPrompt),
-                    new UserMessage(content)
-            ));
-
-            ChatResponse response = chatModel.call(prompt);
-
-            // Safely extract summary with null checks
-            String summary;
-            if (response != null && response.getResult() != null && response.getResult().getOutput() != null) {
-                String text = response.getResult().getOutput().getText();
-                if (text == null || text.isBlank()) {
-                    throw new IllegalStateException("Received empty response from AI model");
+            String model = routedModel;
+            ChatResponse response = null;
+            boolean derived = false;
+
+            if (!cacheHit) {
+                // A longer summary of the same source is a far smaller prompt than the article
+                Summary longer = summaryDerivation.findLonger(sourceKey, targetLength).orElse(null);
+                derived = longer != null;
+                if (derived) {
+                    response = call(summaryDerivation.prompt(longer, targetLength, routedModel));
+                } else {
+                    response = hierarchical
+                            ? mapReduceSummarizer.summarize(mapReduceSummarizer.split(promptText, routedModel), targetLength, routedModel)
+                            : generateSummary(promptText, targetLength, routedModel);
+                }
+                summary = response.getResult().getOutput().getText();
+                // Record who actually answered (hedge or fallback); cache only what the primary route would give
+                model = ModelLabel.of(response, routedModel);
+                if (!ModelLabel.isDegraded(response) && routedModel.equals(primary.model())) {
+                    summaryCache.put(cacheKey, summary);
                 }
-                summary = text;
-            } else {
-                throw new IllegalStateException("Invalid response structure from AI model");
             }
 
             long latency = System.currentTimeMillis() - start;
-            String model = "ollama"; // Could extract from response if available
+            if (!cacheHit) {
+                modelRouter.record(route, latency, response);
+                generationProfiles.record(targetLength, model, response);
+            }
 
             // Save summary to database
-            Summary summaryEntity = new Summary();
-            summaryEntity.setOriginalContent(content);
-            summaryEntity.setSummary(summary);
-            summaryEntity.setSourceUrl(sourceUrl);
-            summaryEntity.setArticleTitle(articleTitle);
-            summaryEntity.setTargetLength(targetLength);
-            summaryEntity.setModel(model);
-            summaryEntity.setLatencyMs(latency);
-
-            Summary savedSummary = summaryRepository.save(summaryEntity);
+            SummarizeResponse summarizeResponse = save(content, summary, sourceUrl, sourceKey, articleTitle, targetLength, model, latency);
 
             // Record success metrics
             meterRegistry.counter("summarizer.requests.total",
@@ -131,21 +212,18 @@ public class SummarizationService {
                     "targetLength", targetLength,
                     "status", "success").increment();
 
-            logger.info("Summarization success source={} targetLength={} model={} latencyMs={} urlDomain={} hasUrl={}",
+            logger.info("Summarization success source={} targetLength={} route={} model={} latencyMs={} cacheHit={} derived={} hierarchical={} urlDomain={} hasUrl={}",
                     source,
                     targetLength,
+                    route.name(),
                     model,
                     latency,
+                    cacheHit,
+                    derived,
+                    hierarchical,
                     extractDomain(sourceUrl),
                     sourceUrl != null && !sourceUrl.isBlank());
 
-            // Return response with summary ID
-            SummarizeResponse summarizeResponse = new SummarizeResponse(summary, model, latency);
-            summarizeResponse.setId(savedSummary.getId());
-            summarizeResponse.setCreatedAt(savedSummary.getCreatedAt());
-            summarizeResponse.setSourceUrl(sourceUrl);
-            summarizeResponse.setArticleTitle(articleTitle);
-
             return summarizeResponse;
         } catch (Exception ex) {
             String errorType = classifyError(ex);
@@ -176,6 +254,96 @@ public class SummarizationService {
         }
     }
 
+    private SummarizeResponse summarizeInstant(String content, String sourceUrl, String sourceKey, String articleTitle,
+                                               String targetLength, String source, boolean overload,
+                                               Timer.Sample sample) {
+        long start = System.currentTimeMillis();
+        try {
+            InstantSummarizer.Result result = instantSummarizer.summarize(content, targetLength, overload);
+            long latency = System.currentTimeMillis() - start;
+            SummarizeResponse summarizeResponse = save(content, result.summary(), sourceUrl, sourceKey, articleTitle,
+                    targetLength, result.model(), latency);
+
+            meterRegistry.counter("summarizer.requests.total",
+                    "source", source,
+                    "targetLength", targetLength,
+                    "status", "success").increment();
+
+            logger.info("Summarization success source={} targetLength={} route=instant model={} latencyMs={} overload={} urlDomain={} hasUrl={}",
+                    source,
+                    targetLength,
+                    result.model(),
+                    latency,
+                    overload,
+                    extractDomain(sourceUrl),
+                    sourceUrl != null && !sourceUrl.isBlank());
+
+            return summarizeResponse;
+        } finally {
+            sample.stop(Timer.builder("summarizer.latency")
+                    .description("End-to-end latency for summarization requests")
+                    .tag("source", source)
+                    .tag("targetLength", targetLength)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Saves the summary to the history and returns it with its ID.
+     */
+    private SummarizeResponse save(String content, String summary, String sourceUrl, String sourceKey,
+                                   String articleTitle, String targetLength, String model, long latency) {
+        Summary summaryEntity = new Summary();
+        summaryEntity.setOriginalContent(content);
+        summaryEntity.setSummary(summary);
+        summaryEntity.setSourceUrl(sourceUrl);
+        summaryEntity.setSourceKey(sourceKey);
+        summaryEntity.setArticleTitle(articleTitle);
+        summaryEntity.setTargetLength(targetLength);
+        summaryEntity.setModel(model);
+        summaryEntity.setLatencyMs(latency);
+
+        Summary savedSummary = summaryWriteBehind.save(summaryEntity);
+
+        SummarizeResponse summarizeResponse = new SummarizeResponse(summary, model, latency);
+        summarizeResponse.setId(savedSummary.getId());
+        summarizeResponse.setCreatedAt(savedSummary.getCreatedAt());
+        summarizeResponse.setSourceUrl(sourceUrl);
+        summarizeResponse.setArticleTitle(articleTitle);
+        return summarizeResponse;
+    }
+
+    private ChatResponse generateSummary(String content, String targetLength, String model) {
+        // Build the prompt with system and user messages
+        // targetLength is now guaranteed to be one of: "short", "medium", "long" ("instant" never reaches the model)
+        String systemPrompt = String.format(
+                "You are an expert technical writer. Summarize the following article in a clear, concise way.\n" +
+                        "Target length: %s\n" +
+                        "Return only the summary text.",
+                targetLength
+        );
+
+        Prompt prompt = new Prompt(List.of(
+                ExtractiveChatModel.systemMessage(systemPrompt, targetLength),
+                new UserMessage(content)
+        ), generationProfiles.options(model, targetLength, systemPrompt, content));
+        return call(prompt);
+    }
+
+    private ChatResponse call(Prompt prompt) {
+        ChatResponse response = chatModel.call(prompt);
+
+        // Safely extract summary with null checks
+        if (response != null && response.getResult() != null && response.getResult().getOutput() != null) {
+            String text = response.getResult().getOutput().getText();
+            if (text == null || text.isBlank()) {
+                throw new IllegalStateException("Received empty response from AI model");
+            }
+            return response;
+        }
+        throw new IllegalStateException("Invalid response structure from AI model");
+    }
+
     private String classifyError(Exception ex) {
         Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
         String message = cause.getMessage() != null ? cause.getMessage() : "";
@@ -235,8 +403,8 @@ public class SummarizationService {
         summaryEntity.setArticleTitle(articleTitle != null ? articleTitle : "Demo Article");
         summaryEntity.setTargetLength(targetLength);
         summaryEntity.setModel("demo");
-        summaryEntity.setLatencyMs(150);
-        Summary savedSummary = summaryRepository.save(summaryEntity);
+        summaryEntity.setLatencyMs(150L);
+        Summary savedSummary = summaryWriteBehind.save(summaryEntity);
 
         SummarizeResponse response = new SummarizeResponse(summary, "demo", 150);
         response.setId(savedSummary.getId());
@@ -0,0 +1,179 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache of generated summaries.
+ * <p>
+ * Entries are keyed on a SHA-256 of the normalized article text, target length and model, so the
+ * same story pasted or linked again skips the model entirely. Lookups go through an on-heap LRU tier
+ * bounded by approximate byte size, then a memory-mapped on-disk tier that survives restarts.
+ */
+@Service
+public class SummaryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+    private final long heapMaxBytes;
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<String, String> heap = new LinkedHashMap<>(256, 0.75f, true);
+    private final MappedSummaryStore disk;
+    private long heapBytes;
+
+    public SummaryCache(@Value("${app.cache.enabled:true}") boolean enabled,
+                        @Value("${app.cache.heap-max-bytes:33554432}") long heapMaxBytes,
+                        @Value("${app.cache.disk-path:./data/summary-cache.bin}") String diskPath,
+                        @Value("${app.cache.disk-max-bytes:268435456}") int diskMaxBytes,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.heapMaxBytes = heapMaxBytes;
+        this.meterRegistry = meterRegistry;
+        this.disk = enabled ? openDiskTier(diskPath, diskMaxBytes) : null;
+
+        Gauge.builder("summarizer.cache.heap.bytes", this, cache -> cache.heapBytes())
+                .description("Approximate bytes held by the on-heap summary cache tier")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.cache.entries", this, cache -> cache.disk != null ? cache.disk.size() : 0)
+                .description("Entries held by the on-disk summary cache tier")
+                .tag("tier", "disk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the cache key for a piece of content. Whitespace and Unicode normalization make
+     * trivially different copies of the same article (re-pasted, re-fetched) hash identically.
+     */
+    public static String key(String content, String targetLength, String model) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(targetLength.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(content).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String normalize(String content) {
+        String nfc = Normalizer.normalize(content, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(nfc).replaceAll(" ").trim();
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String value;
+        synchronized (heap) {
+            value = heap.get(key);
+        }
+        if (value != null) {
+            record("hit", "heap");
+            return Optional.of(value);
+        }
+        value = disk != null ? disk.get(key) : null;
+        if (value != null) {
+            record("hit", "disk");
+            putHeap(key, value);
+            return Optional.of(value);
+        }
+        record("miss", "all");
+        return Optional.empty();
+    }
+
+    public void put(String key, String summary) {
+        if (!enabled || summary == null || summary.isBlank()) {
+            return;
+        }
+        putHeap(key, summary);
+        if (disk != null) {
+            int evicted = disk.put(key, summary);
+            if (evicted > 0) {
+                meterRegistry.counter("summarizer.cache.evictions", "tier", "disk").increment(evicted);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (disk != null) {
+            try {
+                disk.close();
+            } catch (IOException e) {
+                logger.warn("Error closing disk summary cache: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void putHeap(String key, String value) {
+        int evicted = 0;
+        synchronized (heap) {
+            String previous = heap.put(key, value);
+            if (previous != null) {
+                heapBytes -= weight(key, previous);
+            }
+            heapBytes += weight(key, value);
+            Iterator<Map.Entry<String, String>> eldest = heap.entrySet().iterator();
+            while (heapBytes > heapMaxBytes && eldest.hasNext()) {
+                Map.Entry<String, String> entry = eldest.next();
+                heapBytes -= weight(entry.getKey(), entry.getValue());
+                eldest.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            meterRegistry.counter("summarizer.cache.evictions", "tier", "heap").increment(evicted);
+        }
+    }
+
+    private long heapBytes() {
+        synchronized (heap) {
+            return heapBytes;
+        }
+    }
+
+    /** Rough retained size: two bytes per char plus per-entry object overhead. */
+    private static long weight(String key, String value) {
+        return 2L * (key.length() + value.length()) + 96;
+    }
+
+    private void record(String result, String tier) {
+        meterRegistry.counter("summarizer.cache.requests", "result", result, "tier", tier).increment();
+    }
+
+    private static MappedSummaryStore openDiskTier(String diskPath, int diskMaxBytes) {
+        if (diskPath == null || diskPath.isBlank() || diskMaxBytes <= 0) {
+            return null;
+        }
+        try {
+            return new MappedSummaryStore(Path.of(diskPath), diskMaxBytes);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Disk summary cache disabled, could not open {}: {}", diskPath, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.TargetLength;
+import com.example.aiarticlesummarizer.llm.ExtractiveChatModel;
+import com.example.aiarticlesummarizer.llm.ModelLabel;
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shorter summaries from an existing longer summary of the same source: asking for {@code short}
+ * after {@code long} condenses a few hundred tokens of summary instead of re-reading the article.
+ * <p>
+ * Sources are matched on {@code Summary.sourceKey}, an indexed hash of the URL (or of the normalized
+ * text for pasted articles). Extractive, demo and fallback summaries are never used as a source.
+ */
+@Service
+public class SummaryDerivation {
+
+    private final SummaryRepository summaryRepository;
+    private final GenerationProfiles generationProfiles;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maxAgeMinutes;
+
+    public SummaryDerivation(SummaryRepository summaryRepository,
+                             GenerationProfiles generationProfiles,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.derive.enabled:true}") boolean enabled,
+                             @Value("${app.derive.max-age-minutes:1440}") long maxAgeMinutes) {
+        this.summaryRepository = summaryRepository;
+        this.generationProfiles = generationProfiles;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxAgeMinutes = maxAgeMinutes;
+    }
+
+    /**
+     * Identifies the article a summary was made from: the URL when there is one, since the fetched
+     * page may differ slightly between requests, otherwise the normalized text.
+     */
+    public static String sourceKey(String sourceUrl, String content) {
+        String source = sourceUrl != null && !sourceUrl.isBlank()
+                ? "url:" + sourceUrl.strip()
+                : "text:" + SummaryCache.normalize(content);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The most recent model-written summary of this source at the nearest longer target length, if any.
+     */
+    public Optional<Summary> findLonger(String sourceKey, String targetLength) {
+        if (!enabled || sourceKey == null) {
+            return Optional.empty();
+        }
+        TargetLength requested = TargetLength.fromString(targetLength);
+        if (requested == TargetLength.INSTANT) {
+            return Optional.empty();
+        }
+        List<String> longer = new ArrayList<>();
+        for (TargetLength length : TargetLength.values()) {
+            if (length.ordinal() > requested.ordinal()) {
+                longer.add(length.getValue());
+            }
+        }
+        if (longer.isEmpty()) {
+            return Optional.empty();
+        }
+        LocalDateTime cutoff = maxAgeMinutes > 0 ? LocalDateTime.now().minusMinutes(maxAgeMinutes) : null;
+        return summaryRepository.findTop10BySourceKeyAndTargetLengthInOrderByCreatedAtDesc(sourceKey, longer).stream()
+                .filter(candidate -> cutoff == null || candidate.getCreatedAt().isAfter(cutoff))
+                .filter(candidate -> !Summary.STATUS_CANCELLED.equals(candidate.getStatus()))
+                .filter(candidate -> isModelWritten(candidate.getModel()))
+                // Nearest longer length first (medium before long for short); the list is newest first
+                .min(Comparator.comparingInt(candidate -> TargetLength.fromString(candidate.getTargetLength()).ordinal()));
+    }
+
+    /**
+     * Prompt that condenses {@code source} to {@code targetLength}.
+     */
+    public Prompt prompt(Summary source, String targetLength, String model) {
+        String systemPrompt = String.format(
+                "You are an expert technical writer. The following is a %s summary of an article.\n" +
+                        "Condense it into a shorter summary, keeping the key facts and conclusions.\n" +
+                        "Target length: %s\n" +
+                        "Return only the summary text.",
+                source.getTargetLength(),
+                targetLength
+        );
+        meterRegistry.counter("summarizer.derived.requests",
+                "targetLength", targetLength,
+                "from", source.getTargetLength()).increment();
+        return new Prompt(List.of(
+                ExtractiveChatModel.systemMessage(systemPrompt, targetLength),
+                new UserMessage(source.getSummary())
+        ), generationProfiles.options(model, targetLength, systemPrompt, source.getSummary()));
+    }
+
+    private static boolean isModelWritten(String model) {
+        return model != null
+                && !model.startsWith(InstantSummarizer.ENGINE)
+                && !model.equals("demo")
+                && !model.endsWith("(" + ModelLabel.ROUTE_FALLBACK + ")");
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.api.dto.TargetLength;
+import com.example.aiarticlesummarizer.model.JobStatus;
+import com.example.aiarticlesummarizer.model.SummaryJob;
+import com.example.aiarticlesummarizer.repository.SummaryJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable queue of summarization jobs in the {@code summary_jobs} table. Claiming is a guarded
+ * UPDATE on the row, so any number of workers (in this process or other replicas sharing the
+ * database) can drain the same queue without handing a job out twice while its lease is live.
+ */
+@Service
+public class SummaryJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryJobService.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final SummaryJobRepository jobRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration lease;
+    private final int maxAttempts;
+
+    public SummaryJobService(SummaryJobRepository jobRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.jobs.lease-ms:300000}") long leaseMs,
+                             @Value("${app.jobs.max-attempts:3}") int maxAttempts) {
+        this.jobRepository = jobRepository;
+        this.meterRegistry = meterRegistry;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @Transactional
+    public SummaryJob submit(SummarizeRequest request, String owner) {
+        SummaryJob job = new SummaryJob();
+        job.setStatus(JobStatus.QUEUED);
+        job.setContent(request.getContent());
+        job.setSourceUrl(request.getUrl());
+        job.setTargetLength(TargetLength.fromString(request.getTargetLength()).getValue());
+        job.setOwner(owner);
+        SummaryJob saved = jobRepository.save(job);
+        meterRegistry.counter("summarizer.jobs.submitted").increment();
+        logger.info("Job submitted jobId={} owner={} hasUrl={}", saved.getId(), owner,
+                request.getUrl() != null && !request.getUrl().isBlank());
+        return saved;
+    }
+
+    public Optional<SummaryJob> find(Long id) {
+        return jobRepository.findById(id);
+    }
+
+    /**
+     * Claims up to {@code max} due jobs for the given worker. Candidates are read first and then
+     * claimed one by one; a candidate another worker got to first is simply skipped.
+     */
+    @Transactional
+    public List<SummaryJob> claim(String worker, int max) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SummaryJob> candidates = jobRepository.findClaimable(now, maxAttempts, PageRequest.of(0, max * 2));
+        List<SummaryJob> claimed = new ArrayList<>();
+        for (SummaryJob candidate : candidates) {
+            if (claimed.size() >= max) {
+                break;
+            }
+            boolean recovered = candidate.getStatus() == JobStatus.RUNNING;
+            if (jobRepository.claim(candidate.getId(), worker, now, now.plus(lease), maxAttempts) == 1) {
+                meterRegistry.counter("summarizer.jobs.claimed", "recovered", String.valueOf(recovered)).increment();
+                if (recovered) {
+                    logger.warn("Recovered job with expired lease jobId={} previousWorker={} attempt={}",
+                            candidate.getId(), candidate.getLeaseOwner(), candidate.getAttempts() + 1);
+                }
+                claimed.add(candidate);
+            }
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public void renewLeases(Collection<Long> ids, String worker) {
+        if (!ids.isEmpty()) {
+            jobRepository.renewLeases(ids, worker, LocalDateTime.now().plus(lease));
+        }
+    }
+
+    @Transactional
+    public void succeed(Long id, String worker, Long summaryId) {
+        finish(id, worker, JobStatus.SUCCEEDED, summaryId, null);
+    }
+
+    @Transactional
+    public void fail(Long id, String worker, String error) {
+        if (error != null && error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH - 1) + "…";
+        }
+        finish(id, worker, JobStatus.FAILED, null, error);
+    }
+
+    /** Returns a job to the queue, claimable again after {@code delay}; the attempt is not counted. */
+    @Transactional
+    public void requeue(Long id, String worker, Duration delay) {
+        if (jobRepository.requeue(id, worker, LocalDateTime.now().plus(delay)) == 1) {
+            meterRegistry.counter("summarizer.jobs.requeued").increment();
+        }
+    }
+
+    /** Fails jobs abandoned by crashed workers that have no attempts left. */
+    @Transactional
+    public void failExhausted() {
+        int failed = jobRepository.failExhausted(LocalDateTime.now(), maxAttempts,
+                "Job abandoned after " + maxAttempts + " attempts.");
+        if (failed > 0) {
+            meterRegistry.counter("summarizer.jobs.completed", "status", "failed").increment(failed);
+            logger.warn("Failed {} jobs that exhausted their attempts", failed);
+        }
+    }
+
+    private void finish(Long id, String worker, JobStatus status, Long summaryId, String error) {
+        if (jobRepository.finish(id, worker, status, summaryId, error, LocalDateTime.now()) == 1) {
+            meterRegistry.counter("summarizer.jobs.completed", "status", status.name().toLowerCase()).increment();
+        } else {
+            // Our lease expired and another worker took the job over; its result wins
+            logger.warn("Discarding job result after losing lease jobId={} worker={}", id, worker);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.llm.OverloadedException;
+import com.example.aiarticlesummarizer.llm.Priority;
+import com.example.aiarticlesummarizer.llm.SchedulingContext;
+import com.example.aiarticlesummarizer.model.SummaryJob;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the job table and runs claimed jobs on a fixed pool of worker threads. While a job runs its
+ * lease is renewed periodically; if this process dies the lease lapses and another worker picks the
+ * job up again.
+ */
+@Component
+public class SummaryJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryJobWorker.class);
+
+    private final SummaryJobService jobService;
+    private final SummarizationService summarizationService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int threads;
+    private final String workerId;
+    private final ExecutorService pool;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public SummaryJobWorker(SummaryJobService jobService,
+                            SummarizationService summarizationService,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.jobs.enabled:true}") boolean enabled,
+                            @Value("${app.jobs.worker-threads:4}") int threads) {
+        this.jobService = jobService;
+        this.summarizationService = summarizationService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.threads = Math.max(1, threads);
+        this.workerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.pool = Executors.newFixedThreadPool(this.threads);
+
+        Gauge.builder("summarizer.jobs.running", running, Set::size)
+                .description("Jobs currently being processed by this instance")
+                .register(meterRegistry);
+        logger.info("Job worker started workerId={} threads={} enabled={}", workerId, this.threads, enabled);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jobService.failExhausted();
+            int free = threads - running.size();
+            if (free <= 0) {
+                return;
+            }
+            List<SummaryJob> claimed = jobService.claim(workerId, free);
+            for (SummaryJob job : claimed) {
+                running.add(job.getId());
+                pool.execute(() -> process(job));
+            }
+        } catch (Exception e) {
+            logger.warn("Job poll failed workerId={} message={}", workerId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.lease-renew-interval-ms:60000}")
+    public void renewLeases() {
+        try {
+            jobService.renewLeases(Set.copyOf(running), workerId);
+        } catch (Exception e) {
+            logger.warn("Lease renewal failed workerId={} message={}", workerId, e.getMessage());
+        }
+    }
+
+    private void process(SummaryJob job) {
+        Timer.builder("summarizer.jobs.queue.wait")
+                .description("Time from job submission to a worker starting it")
+                .register(meterRegistry)
+                .record(Duration.between(job.getCreatedAt(), LocalDateTime.now()));
+
+        SummarizeRequest request = new SummarizeRequest();
+        request.setContent(job.getContent());
+        request.setUrl(job.getSourceUrl());
+        request.setTargetLength(job.getTargetLength());
+
+        try (SchedulingContext.Scope ignored = new SchedulingContext(job.getOwner(), Priority.BACKGROUND).bind()) {
+            SummarizeResponse response = summarizationService.summarize(request);
+            jobService.succeed(job.getId(), workerId, response.getId());
+            logger.info("Job succeeded jobId={} summaryId={}", job.getId(), response.getId());
+        } catch (OverloadedException e) {
+            jobService.requeue(job.getId(), workerId, Duration.ofSeconds(e.getRetryAfterSeconds()));
+            logger.info("Job requeued after load shedding jobId={} retryAfterSeconds={}",
+                    job.getId(), e.getRetryAfterSeconds());
+        } catch (Exception e) {
+            if (pool.isShutdown()) {
+                logger.info("Job interrupted by shutdown, leaving it for lease recovery jobId={}", job.getId());
+                return;
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            jobService.fail(job.getId(), workerId, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            logger.warn("Job failed jobId={} message={}", job.getId(), cause.getMessage());
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Unfinished jobs keep their lease and are recovered by another worker once it expires
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+}
@@ -0,0 +1,1129 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * In-process inverted index over summary titles, summaries and article text, replacing
+ * {@code LIKE '%q%'} scans for history search.
+ * <p>
+ * Terms come from {@link SearchAnalyzer}. Each term's postings are varint pairs of (doc number delta,
+ * weighted term frequency); the title counts three times and the summary twice, folded into one
+ * frequency and ranked with BM25. Every query term must match, and the last one also matches as a
+ * prefix so partial words still find results. Prefixes are matched against the words as written, not
+ * their stems ("runni" must find "running", indexed as "run"), so each segment also keeps the words
+ * whose stem differs from them. Rows are handed over by {@link SummaryWriteBehind} once
+ * committed and removed when deleted from history; both only queue the change, and the
+ * {@code search-index} thread tokenizes and applies changes in order, so callers never wait on the
+ * index lock.
+ * <p>
+ * On disk the index is a base segment ({@code app.search.index-path}) followed by delta segments
+ * ({@code <index-path>.<generation>}). Each snapshot swaps out the changes made since the last one and
+ * writes them as a small delta without holding the index lock; once {@code app.search.max-deltas}
+ * deltas exist they are merged into a new base from the files alone. At startup the base and deltas
+ * are loaded and only rows with higher ids are read from the database; the whole table is read only
+ * when the segments are missing or unreadable. Until loading finishes {@link #search} returns null and
+ * callers fall back to the database.
+ */
+@Component
+public class SummarySearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummarySearchIndex.class);
+
+    private static final int MAGIC = 0x53524731;  // "SRG1"
+    private static final int VERSION = 3;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int SUMMARY_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int SNIPPET_CHARS = 200;
+    private static final int SNIPPET_LEAD_CHARS = 60;
+
+    /** A matching summary and its BM25 score. */
+    public record Hit(long summaryId, double score) {
+    }
+
+    /** One page of hits, best first, and the number of matches across all pages. */
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    /** Postings of one term, doc numbers ascending. */
+    private static final class Postings {
+        byte[] bytes = new byte[8];
+        int length;
+        int docFrequency;
+        int lastDoc = -1;
+
+        void add(int doc, int frequency) {
+            if (length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + 10, bytes.length * 2));
+            }
+            length = putVarint(bytes, length, doc - lastDoc);
+            length = putVarint(bytes, length, frequency);
+            lastDoc = doc;
+            docFrequency++;
+        }
+    }
+
+    /**
+     * Documents and their postings: the live index, the changes since the last snapshot, or a file
+     * being merged. Not thread-safe.
+     */
+    private static final class Segment {
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        /** Lowercased words whose term is a different stem, for prefix queries. */
+        final TreeMap<String, String> words = new TreeMap<>();
+        final HashMap<Long, Integer> docById = new HashMap<>();
+        final BitSet deleted = new BitSet();
+        /** Summary ids removed from the segments before this one (deltas only). */
+        final Set<Long> tombstones = new HashSet<>();
+        long[] summaryIds = new long[16];
+        int[] lengths = new int[16];
+        int docCount;
+        int deletedCount;
+        long totalLength;
+        long maxSummaryId;
+        /** A delta's own generation; for a base, the last delta merged into it. */
+        long generation;
+
+        int liveDocs() {
+            return docCount - deletedCount;
+        }
+
+        boolean isEmpty() {
+            return liveDocs() == 0 && tombstones.isEmpty();
+        }
+
+        /** Adds a document, replacing an earlier one with the same id; true when there was one. */
+        boolean add(long summaryId, int length, Map<String, Integer> frequencies, Map<String, String> stemmedWords) {
+            boolean replaced = remove(summaryId);
+            int doc = newDoc(summaryId, length);
+            frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+            words.putAll(stemmedWords);
+            return replaced;
+        }
+
+        boolean remove(long summaryId) {
+            Integer doc = docById.remove(summaryId);
+            if (doc == null) {
+                return false;
+            }
+            deleted.set(doc);
+            deletedCount++;
+            totalLength -= lengths[doc];
+            return true;
+        }
+
+        /** Applies a later segment on top of this one: its removals first, then its documents. */
+        void append(Segment later) {
+            for (long summaryId : later.tombstones) {
+                remove(summaryId);
+                tombstones.add(summaryId);
+            }
+            int[] renumbered = new int[later.docCount];
+            for (int doc = 0; doc < later.docCount; doc++) {
+                if (later.deleted.get(doc)) {
+                    renumbered[doc] = -1;
+                } else {
+                    remove(later.summaryIds[doc]);
+                    renumbered[doc] = newDoc(later.summaryIds[doc], later.lengths[doc]);
+                }
+            }
+            // Appended documents number above every existing one, so postings stay ascending
+            later.terms.forEach((term, postings) -> {
+                Postings target = null;
+                int[] cursor = {0};
+                int doc = -1;
+                while (cursor[0] < postings.length) {
+                    doc += readVarint(postings.bytes, cursor);
+                    int frequency = readVarint(postings.bytes, cursor);
+                    if (renumbered[doc] >= 0) {
+                        if (target == null) {
+                            target = terms.computeIfAbsent(term, t -> new Postings());
+                        }
+                        target.add(renumbered[doc], frequency);
+                    }
+                }
+            });
+            words.putAll(later.words);
+            maxSummaryId = Math.max(maxSummaryId, later.maxSummaryId);
+        }
+
+        /** Drops deleted documents and renumbers the rest; postings are rewritten without them. */
+        void compact() {
+            if (deletedCount == 0) {
+                return;
+            }
+            int[] renumbered = new int[docCount];
+            int live = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    renumbered[doc] = -1;
+                } else {
+                    renumbered[doc] = live;
+                    summaryIds[live] = summaryIds[doc];
+                    lengths[live] = lengths[doc];
+                    live++;
+                }
+            }
+            var iterator = terms.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                Postings old = entry.getValue();
+                Postings rewritten = new Postings();
+                int[] cursor = {0};
+                int doc = -1;
+                while (cursor[0] < old.length) {
+                    doc += readVarint(old.bytes, cursor);
+                    int frequency = readVarint(old.bytes, cursor);
+                    if (renumbered[doc] >= 0) {
+                        rewritten.add(renumbered[doc], frequency);
+                    }
+                }
+                if (rewritten.docFrequency == 0) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(rewritten);
+                }
+            }
+            words.values().removeIf(term -> !terms.containsKey(term));
+            docById.clear();
+            for (int doc = 0; doc < live; doc++) {
+                docById.put(summaryIds[doc], doc);
+            }
+            deleted.clear();
+            docCount = live;
+            deletedCount = 0;
+        }
+
+        private int newDoc(long summaryId, int length) {
+            if (docCount == summaryIds.length) {
+                summaryIds = Arrays.copyOf(summaryIds, docCount * 2);
+                lengths = Arrays.copyOf(lengths, docCount * 2);
+            }
+            int doc = docCount++;
+            summaryIds[doc] = summaryId;
+            lengths[doc] = length;
+            docById.put(summaryId, doc);
+            totalLength += length;
+            maxSummaryId = Math.max(maxSummaryId, summaryId);
+            return doc;
+        }
+    }
+
+    private final SummaryRepository summaryRepository;
+    private final boolean enabled;
+    private final Path path;
+    private final int rebuildPageSize;
+    private final int maxDeltas;
+    private final Timer searchTimer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BlockingQueue<Runnable> changes = new LinkedBlockingQueue<>();
+    private final Thread indexer;
+
+    // Guarded by lock
+    private Segment live = new Segment();
+    /** Changes not yet in a segment file; not kept while a full save is due anyway. */
+    private Segment pending = new Segment();
+    private boolean fullSaveNeeded;
+
+    // Guarded by the files monitor: snapshots and merges run one at a time
+    private final Object files = new Object();
+    private long nextGeneration = 1;
+
+    // Guarded by submittedLock / appliedLock
+    private final Object submittedLock = new Object();
+    private long submitted;
+    private final Object appliedLock = new Object();
+    private long applied;
+
+    private volatile boolean ready;
+    private volatile boolean closing;
+
+    public SummarySearchIndex(SummaryRepository summaryRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.search.enabled:true}") boolean enabled,
+                              @Value("${app.search.index-path:./data/search-index.seg}") String indexPath,
+                              @Value("${app.search.rebuild-page-size:500}") int rebuildPageSize,
+                              @Value("${app.search.max-deltas:8}") int maxDeltas) {
+        this.summaryRepository = summaryRepository;
+        this.enabled = enabled;
+        this.path = Paths.get(indexPath);
+        this.rebuildPageSize = Math.max(1, rebuildPageSize);
+        this.maxDeltas = Math.max(1, maxDeltas);
+        this.searchTimer = Timer.builder("summarizer.search.latency")
+                .description("History search against the in-process index")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.search.index.docs", this, index -> index.liveDocs())
+                .description("Summaries in the search index")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.search.index.bytes", this, index -> index.postingsBytes())
+                .description("Postings held in memory by the search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.search.index.queue", changes, BlockingQueue::size)
+                .description("Index changes waiting for the search-index thread")
+                .register(meterRegistry);
+        // Loading can read the whole table; the application starts serving meanwhile
+        this.indexer = new Thread(this::run, "search-index");
+        indexer.setDaemon(true);
+        if (enabled) {
+            indexer.start();
+        }
+    }
+
+    /** Queues a committed row for indexing; it becomes searchable shortly after. */
+    public void add(Summary summary) {
+        if (enabled && summary.getId() != null) {
+            submit(() -> index(summary));
+        }
+    }
+
+    public void remove(Long summaryId) {
+        if (enabled && summaryId != null) {
+            submit(() -> unindex(summaryId));
+        }
+    }
+
+    public void clear() {
+        if (enabled) {
+            submit(this::clearLocked);
+        }
+    }
+
+    /**
+     * Waits, up to {@code timeoutMs}, until every change queued before this call has been applied.
+     */
+    public void awaitIndexed(long timeoutMs) {
+        long target;
+        synchronized (submittedLock) {
+            target = submitted;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (appliedLock) {
+            while (applied < target) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return;
+                }
+                try {
+                    appliedLock.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One page of matches for {@code query}, best first; null while the index is still loading.
+     */
+    public Result search(String query, int page, int size) {
+        if (!enabled || !ready) {
+            return null;
+        }
+        List<SearchAnalyzer.Token> queryTokens = SearchAnalyzer.tokens(query);
+        if (queryTokens.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        SearchAnalyzer.Token last = queryTokens.get(queryTokens.size() - 1);
+        String prefix = endsInWord(query) ? last.word() : null;
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        queryTokens.forEach(token -> distinct.add(token.term()));
+        // The word being typed goes last, where it is expanded as a prefix
+        distinct.remove(last.term());
+        List<String> groups = new ArrayList<>(distinct.stream().limit(MAX_QUERY_TERMS - 1).toList());
+        groups.add(last.term());
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Segment index = live;
+            int liveDocs = index.liveDocs();
+            if (liveDocs == 0) {
+                return new Result(List.of(), 0);
+            }
+            double averageLength = Math.max(1.0, (double) index.totalLength / liveDocs);
+            float[] scores = new float[index.docCount];
+            byte[] matched = new byte[index.docCount];
+            for (int g = 0; g < groups.size(); g++) {
+                String term = groups.get(g);
+                for (Postings postings : expansions(index, term, g == groups.size() - 1 ? prefix : null)) {
+                    score(postings, g, liveDocs, averageLength, index, scores, matched);
+                }
+            }
+            int required = groups.size();
+            List<Integer> docs = new ArrayList<>();
+            for (int doc = 0; doc < index.docCount; doc++) {
+                if (matched[doc] == required && !index.deleted.get(doc)) {
+                    docs.add(doc);
+                }
+            }
+            // Best score first; equal scores newest first
+            docs.sort((a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Integer.compare(b, a));
+            List<Hit> hits = new ArrayList<>();
+            long from = (long) page * size;
+            for (long i = from; i < Math.min(docs.size(), from + size); i++) {
+                int doc = docs.get((int) i);
+                hits.add(new Hit(index.summaryIds[doc], scores[doc]));
+            }
+            return new Result(hits, docs.size());
+        } finally {
+            lock.readLock().unlock();
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * A passage of the summary (or article, or title) around the first query match, HTML-escaped with
+     * matches wrapped in {@code <mark>}; null when no field contains a match.
+     */
+    public String snippet(Summary summary, String query) {
+        List<SearchAnalyzer.Token> queryTokens = SearchAnalyzer.tokens(query);
+        List<String> queryTerms = queryTokens.stream().map(SearchAnalyzer.Token::term).toList();
+        String prefix = endsInWord(query) && !queryTokens.isEmpty() ? queryTokens.get(queryTokens.size() - 1).word() : null;
+        for (String text : new String[] {summary.getSummary(), summary.getOriginalContent(), summary.getArticleTitle()}) {
+            List<SearchAnalyzer.Token> tokens = SearchAnalyzer.tokens(text);
+            for (SearchAnalyzer.Token token : tokens) {
+                if (matches(token, queryTerms, prefix)) {
+                    return highlight(text, tokens, token.start(), queryTerms, prefix);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves the changes made since the last snapshot as a new delta segment (or, after a rebuild or
+     * {@link #clear}, the whole index as a new base), then merges the deltas once there are enough.
+     * The index lock is held only to swap out the pending changes; indexing and searches continue
+     * while the file is written.
+     */
+    @Scheduled(fixedDelayString = "${app.search.snapshot-interval-ms:60000}",
+            initialDelayString = "${app.search.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!enabled || !ready) {
+            return;
+        }
+        synchronized (files) {
+            long start = System.currentTimeMillis();
+            Segment saved;
+            boolean full;
+            lock.writeLock().lock();
+            try {
+                full = fullSaveNeeded;
+                if (!full && pending.isEmpty()) {
+                    return;
+                }
+                saved = full ? live : pending;
+                pending = new Segment();
+                fullSaveNeeded = false;
+                if (full) {
+                    live.compact();
+                    // Downgrade: searches continue while the base is written, changes wait for it
+                    lock.readLock().lock();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long generation = nextGeneration++;
+            try {
+                if (full) {
+                    try {
+                        writeSegment(path, saved, generation);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    for (long delta : deltaGenerations()) {
+                        Files.deleteIfExists(deltaPath(delta));
+                    }
+                } else {
+                    saved.compact();
+                    writeSegment(deltaPath(generation), saved, generation);
+                }
+            } catch (IOException | RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    if (full) {
+                        fullSaveNeeded = true;
+                    } else {
+                        // Keep the unsaved changes, with anything that happened since on top
+                        saved.append(pending);
+                        pending = saved;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.warn("Search index save failed path={} message={}", path, e.getMessage());
+                return;
+            }
+            logger.info("Search index saved path={} segment={} docs={} removed={} ms={}",
+                    path, full ? "base" : "delta-" + generation, saved.liveDocs(), saved.tombstones.size(),
+                    System.currentTimeMillis() - start);
+            if (!full) {
+                mergeIfDue();
+            }
+        }
+        compactIfSparse();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closing = true;
+        if (indexer.isAlive()) {
+            indexer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        snapshot();
+    }
+
+    /** Drops deleted documents from memory now rather than when a quarter of the index is deleted. */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            live.compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void submit(Runnable change) {
+        // Numbered together with queueing, so awaitIndexed can tell which changes came first
+        synchronized (submittedLock) {
+            changes.add(change);
+            submitted++;
+        }
+    }
+
+    private void run() {
+        load();
+        while (!closing || !changes.isEmpty()) {
+            Runnable change;
+            try {
+                change = changes.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                closing = true;
+                continue;
+            }
+            if (change == null) {
+                continue;
+            }
+            try {
+                change.run();
+            } catch (RuntimeException e) {
+                logger.warn("Search index update failed message={}", e.getMessage(), e);
+            }
+            synchronized (appliedLock) {
+                applied++;
+                appliedLock.notifyAll();
+            }
+        }
+    }
+
+    private void index(Summary summary) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        Map<String, String> stemmedWords = new HashMap<>();
+        int length = count(frequencies, stemmedWords, summary.getArticleTitle(), TITLE_WEIGHT)
+                + count(frequencies, stemmedWords, summary.getSummary(), SUMMARY_WEIGHT)
+                + count(frequencies, stemmedWords, summary.getOriginalContent(), CONTENT_WEIGHT);
+        long summaryId = summary.getId();
+        lock.writeLock().lock();
+        try {
+            boolean replaced = live.add(summaryId, length, frequencies, stemmedWords);
+            if (!fullSaveNeeded) {
+                pending.add(summaryId, length, frequencies, stemmedWords);
+                if (replaced) {
+                    pending.tombstones.add(summaryId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(long summaryId) {
+        lock.writeLock().lock();
+        try {
+            if (live.remove(summaryId) && !fullSaveNeeded) {
+                pending.remove(summaryId);
+                pending.tombstones.add(summaryId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearLocked() {
+        lock.writeLock().lock();
+        try {
+            live = new Segment();
+            pending = new Segment();
+            fullSaveNeeded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        Segment loaded = null;
+        synchronized (files) {
+            try {
+                loaded = readSegments();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Search index segment unreadable, rebuilding path={} message={}", path, e.getMessage());
+            }
+            if (loaded == null) {
+                deleteSegments();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded != null) {
+                loaded.tombstones.clear();
+                loaded.compact();
+                live = loaded;
+            } else {
+                live = new Segment();
+                fullSaveNeeded = true;
+            }
+            pending = new Segment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            // Rows saved after the segments were written (or all rows when there were none)
+            long after;
+            lock.readLock().lock();
+            try {
+                after = live.maxSummaryId;
+            } finally {
+                lock.readLock().unlock();
+            }
+            int added = 0;
+            List<Summary> rows;
+            do {
+                rows = summaryRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, rebuildPageSize));
+                for (Summary row : rows) {
+                    index(row);
+                    after = row.getId();
+                }
+                added += rows.size();
+            } while (rows.size() == rebuildPageSize);
+            ready = true;
+            logger.info("Search index ready segment={} docs={} addedFromDatabase={} ms={}",
+                    loaded != null ? "loaded" : "rebuilt", liveDocs(), added, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.warn("Search index load failed, history search uses the database message={}", e.getMessage(), e);
+        }
+    }
+
+    /** The base segment with its newer deltas applied; null when there is no base. */
+    private Segment readSegments() throws IOException {
+        List<Long> deltas = deltaGenerations();
+        if (!deltas.isEmpty()) {
+            nextGeneration = Math.max(nextGeneration, deltas.get(deltas.size() - 1) + 1);
+        }
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Segment base = readSegment(Files.readAllBytes(path));
+        nextGeneration = Math.max(nextGeneration, base.generation + 1);
+        for (long delta : deltas) {
+            if (delta <= base.generation) {
+                // Already merged; left behind by a crash before the merge deleted it
+                Files.deleteIfExists(deltaPath(delta));
+            } else {
+                base.append(readSegment(Files.readAllBytes(deltaPath(delta))));
+            }
+        }
+        return base;
+    }
+
+    /**
+     * Folds the deltas into a new base once there are {@code max-deltas} of them. Works from the files
+     * alone, so the live index is not locked; a failure leaves the old base and deltas in place.
+     */
+    private void mergeIfDue() {
+        try {
+            List<Long> deltas = deltaGenerations();
+            if (deltas.size() < maxDeltas || !Files.exists(path)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Segment merged = readSegment(Files.readAllBytes(path));
+            for (long delta : deltas) {
+                merged.append(readSegment(Files.readAllBytes(deltaPath(delta))));
+            }
+            merged.tombstones.clear();
+            merged.compact();
+            long generation = deltas.get(deltas.size() - 1);
+            writeSegment(path, merged, generation);
+            for (long delta : deltas) {
+                Files.deleteIfExists(deltaPath(delta));
+            }
+            logger.info("Search index segments merged path={} deltas={} docs={} ms={}",
+                    path, deltas.size(), merged.liveDocs(), System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Search index merge failed path={} message={}", path, e.getMessage());
+        }
+    }
+
+    private void compactIfSparse() {
+        lock.writeLock().lock();
+        try {
+            if (live.deletedCount * 4 > live.docCount) {
+                live.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Long> deltaGenerations() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.length() > prefix.length()
+                            && name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+                    .map(name -> Long.parseLong(name.substring(prefix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path deltaPath(long generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    private void deleteSegments() {
+        try {
+            for (long delta : deltaGenerations()) {
+                Files.deleteIfExists(deltaPath(delta));
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete search index segments path={} message={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * The postings for {@code term}, and with a {@code prefix} also those of every term reached from a
+     * word starting with it: terms that start with it (words indexed unchanged) and the stems of
+     * words that do.
+     */
+    private static List<Postings> expansions(Segment index, String term, String prefix) {
+        LinkedHashSet<String> expandedTerms = new LinkedHashSet<>();
+        expandedTerms.add(term);
+        if (prefix != null) {
+            String end = prefix + Character.MAX_VALUE;
+            for (String candidate : index.terms.subMap(prefix, true, end, false).keySet()) {
+                if (expandedTerms.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expandedTerms.add(candidate);
+            }
+            for (String stem : index.words.subMap(prefix, true, end, false).values()) {
+                if (expandedTerms.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expandedTerms.add(stem);
+            }
+        }
+        List<Postings> expanded = new ArrayList<>();
+        for (String expandedTerm : expandedTerms) {
+            Postings postings = index.terms.get(expandedTerm);
+            if (postings != null) {
+                expanded.add(postings);
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Adds BM25 scores for one posting list to documents that matched every earlier query term. A
+     * document reached through two expansions of the same term is scored for both but counted once.
+     * Deleted documents still in the postings are left out of the document frequency, so scores do not
+     * change when the index is compacted.
+     */
+    private static void score(Postings postings, int group, int live, double averageLength, Segment index,
+                              float[] scores, byte[] matched) {
+        int docFrequency = index.deletedCount == 0 ? postings.docFrequency : liveDocFrequency(postings, index.deleted);
+        double idf = Math.log(1 + (live - docFrequency + 0.5) / (docFrequency + 0.5));
+        int[] lengths = index.lengths;
+        byte[] bytes = postings.bytes;
+        int pos = 0;
+        int doc = -1;
+        while (pos < postings.length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = bytes[pos++];
+                frequency |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            if (matched[doc] == group || matched[doc] == group + 1) {
+                matched[doc] = (byte) (group + 1);
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scores[doc] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+            }
+        }
+    }
+
+    /**
+     * Segment layout: {@code magic, version, generation}, the removed summary ids (ascending deltas),
+     * {@code docCount, maxSummaryId}, then per document its summary id (zigzag delta) and weighted
+     * length, then the terms in order, each front-coded against the previous one
+     * ({@code shared, suffixLength, suffix}) with {@code docFrequency, postingsLength, postings}, then
+     * the stemmed words in order, front-coded the same way, each followed by its term coded against
+     * the word ({@code shared, suffixLength, suffix}). Integers are varints; a CRC32 of everything before it ends the file. Written to a temporary file
+     * and moved into place, so a crash leaves the previous file intact. The segment must be compacted.
+     */
+    private static void writeSegment(Path target, Segment segment, long generation) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream raw = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(raw, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeVarlong(out, generation);
+            long[] tombstones = segment.tombstones.stream().mapToLong(Long::longValue).sorted().toArray();
+            writeVarint(out, tombstones.length);
+            long previousTombstone = 0;
+            for (long tombstone : tombstones) {
+                writeVarlong(out, tombstone - previousTombstone);
+                previousTombstone = tombstone;
+            }
+            writeVarint(out, segment.docCount);
+            writeVarlong(out, segment.maxSummaryId);
+            long previousId = 0;
+            for (int doc = 0; doc < segment.docCount; doc++) {
+                long delta = segment.summaryIds[doc] - previousId;
+                writeVarlong(out, (delta << 1) ^ (delta >> 63));
+                writeVarint(out, segment.lengths[doc]);
+                previousId = segment.summaryIds[doc];
+            }
+            writeVarint(out, segment.terms.size());
+            byte[] previous = new byte[0];
+            for (Map.Entry<String, Postings> entry : segment.terms.entrySet()) {
+                byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                writeFrontCoded(out, previous, term);
+                Postings postings = entry.getValue();
+                writeVarint(out, postings.docFrequency);
+                writeVarint(out, postings.length);
+                out.write(postings.bytes, 0, postings.length);
+                previous = term;
+            }
+            writeVarint(out, segment.words.size());
+            previous = new byte[0];
+            for (Map.Entry<String, String> entry : segment.words.entrySet()) {
+                byte[] word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                writeFrontCoded(out, previous, word);
+                writeFrontCoded(out, word, entry.getValue().getBytes(StandardCharsets.UTF_8));
+                previous = word;
+            }
+            out.flush();
+            // Written past the checked stream: the checksum covers the bytes above, not itself
+            raw.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Segment readSegment(byte[] file) throws IOException {
+        if (file.length < 12) {
+            throw new IOException("truncated segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(file, 0, file.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        if ((int) crc.getValue() != buffer.getInt(file.length - 4)) {
+            throw new IOException("checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a search index segment");
+        }
+        int[] cursor = {buffer.position()};
+        Segment segment = new Segment();
+        segment.generation = readVarlong(file, cursor);
+        int tombstoneCount = readVarint(file, cursor);
+        long tombstone = 0;
+        for (int i = 0; i < tombstoneCount; i++) {
+            tombstone += readVarlong(file, cursor);
+            segment.tombstones.add(tombstone);
+        }
+        int count = readVarint(file, cursor);
+        segment.maxSummaryId = readVarlong(file, cursor);
+        segment.summaryIds = new long[Math.max(16, count)];
+        segment.lengths = new int[segment.summaryIds.length];
+        long previousId = 0;
+        for (int doc = 0; doc < count; doc++) {
+            long zigzag = readVarlong(file, cursor);
+            previousId += (zigzag >>> 1) ^ -(zigzag & 1);
+            segment.summaryIds[doc] = previousId;
+            segment.lengths[doc] = readVarint(file, cursor);
+            segment.totalLength += segment.lengths[doc];
+            segment.docById.put(previousId, doc);
+        }
+        segment.docCount = count;
+        int termCount = readVarint(file, cursor);
+        byte[] previous = new byte[0];
+        for (int t = 0; t < termCount; t++) {
+            byte[] term = readFrontCoded(file, cursor, previous);
+            Postings postings = new Postings();
+            postings.docFrequency = readVarint(file, cursor);
+            postings.length = readVarint(file, cursor);
+            postings.bytes = Arrays.copyOfRange(file, cursor[0], cursor[0] + postings.length);
+            cursor[0] += postings.length;
+            postings.lastDoc = lastDoc(postings);
+            segment.terms.put(new String(term, StandardCharsets.UTF_8), postings);
+            previous = term;
+        }
+        int wordCount = readVarint(file, cursor);
+        previous = new byte[0];
+        for (int w = 0; w < wordCount; w++) {
+            byte[] word = readFrontCoded(file, cursor, previous);
+            byte[] term = readFrontCoded(file, cursor, word);
+            segment.words.put(new String(word, StandardCharsets.UTF_8), new String(term, StandardCharsets.UTF_8));
+            previous = word;
+        }
+        if (cursor[0] != file.length - 4) {
+            throw new IOException("unexpected segment length");
+        }
+        return segment;
+    }
+
+    private static void writeFrontCoded(DataOutputStream out, byte[] previous, byte[] value) throws IOException {
+        int shared = 0;
+        while (shared < previous.length && shared < value.length && previous[shared] == value[shared]) {
+            shared++;
+        }
+        writeVarint(out, shared);
+        writeVarint(out, value.length - shared);
+        out.write(value, shared, value.length - shared);
+    }
+
+    private static byte[] readFrontCoded(byte[] file, int[] cursor, byte[] previous) {
+        int shared = readVarint(file, cursor);
+        int suffix = readVarint(file, cursor);
+        byte[] value = Arrays.copyOf(previous, shared + suffix);
+        System.arraycopy(file, cursor[0], value, shared, suffix);
+        cursor[0] += suffix;
+        return value;
+    }
+
+    private static int liveDocFrequency(Postings postings, BitSet deleted) {
+        int[] cursor = {0};
+        int doc = -1;
+        int live = 0;
+        while (cursor[0] < postings.length) {
+            doc += readVarint(postings.bytes, cursor);
+            readVarint(postings.bytes, cursor);
+            if (!deleted.get(doc)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static int lastDoc(Postings postings) {
+        int[] cursor = {0};
+        int doc = -1;
+        while (cursor[0] < postings.length) {
+            doc += readVarint(postings.bytes, cursor);
+            readVarint(postings.bytes, cursor);
+        }
+        return doc;
+    }
+
+    private int liveDocs() {
+        lock.readLock().lock();
+        try {
+            return live.liveDocs();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long postingsBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings postings : live.terms.values()) {
+                bytes += postings.bytes.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int count(Map<String, Integer> frequencies, Map<String, String> stemmedWords, String text, int weight) {
+        List<SearchAnalyzer.Token> tokens = SearchAnalyzer.tokens(text);
+        for (SearchAnalyzer.Token token : tokens) {
+            frequencies.merge(token.term(), weight, Integer::sum);
+            if (!token.word().equals(token.term())) {
+                stemmedWords.put(token.word(), token.term());
+            }
+        }
+        return tokens.size() * weight;
+    }
+
+    /** A query still being typed (no trailing space or punctuation) treats its last word as a prefix. */
+    private static boolean endsInWord(String query) {
+        return !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+    }
+
+    private static boolean matches(SearchAnalyzer.Token token, List<String> queryTerms, String prefix) {
+        return queryTerms.contains(token.term()) || (prefix != null && token.word().startsWith(prefix));
+    }
+
+    private static String highlight(String text, List<SearchAnalyzer.Token> tokens, int matchStart,
+                                    List<String> queryTerms, String prefix) {
+        int start = Math.max(0, matchStart - SNIPPET_LEAD_CHARS);
+        if (start > 0) {
+            int space = text.indexOf(' ', start);
+            start = space >= 0 && space < matchStart ? space + 1 : matchStart;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_CHARS);
+        if (end < text.length()) {
+            int space = text.lastIndexOf(' ', end);
+            end = space > matchStart ? space : end;
+        }
+        StringBuilder snippet = new StringBuilder(SNIPPET_CHARS + 64);
+        if (start > 0) {
+            snippet.append('…');
+        }
+        int pos = start;
+        for (SearchAnalyzer.Token token : tokens) {
+            if (token.start() < start || token.end() > end || !matches(token, queryTerms, prefix)) {
+                continue;
+            }
+            escape(snippet, text, pos, token.start());
+            snippet.append("<mark>");
+            escape(snippet, text, token.start(), token.end());
+            snippet.append("</mark>");
+            pos = token.end();
+        }
+        escape(snippet, text, pos, end);
+        if (end < text.length()) {
+            snippet.append('…');
+        }
+        return snippet.toString();
+    }
+
+    private static void escape(StringBuilder out, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\n', '\r' -> out.append(' ');
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static int putVarint(byte[] bytes, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[cursor[0]++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long readVarlong(byte[] bytes, int[] cursor) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[cursor[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        writeVarlong(out, value & 0xffffffffL);
+    }
+
+    private static void writeVarlong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind persistence for finished summaries. Both services hand their {@link Summary} rows to a
+ * bounded queue; one writer thread drains it and inserts whatever has accumulated in a single
+ * transaction, which Hibernate sends as JDBC batches ({@code hibernate.jdbc.batch_size}) with ids
+ * drawn 50 at a time from {@code summaries_seq}. Under load a flush carries many rows; when idle each
+ * row is written as soon as it arrives.
+ * <p>
+ * A full queue blocks the caller until the writer catches up, except on a non-blocking (Reactor or
+ * Netty event loop) thread, where the wait moves to {@code boundedElastic} and the caller carries on.
+ * Rows still queued at shutdown are flushed before the connection pool closes. Queue depth, flush
+ * latency and batch size are exported as {@code summarizer.persistence.*}.
+ */
+@Component
+public class SummaryWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryWriteBehind.class);
+
+    private static final String SEQUENCE = "summaries_seq";
+
+    private record Pending(Summary summary, CompletableFuture<Summary> saved) {
+    }
+
+    private final SummaryRepository summaryRepository;
+    private final SummarySearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long readWaitMs;
+    private final BlockingQueue<Pending> queue;
+    /** Saves not yet written, including those still waiting for room in the queue. */
+    private final Set<CompletableFuture<Summary>> unsaved = ConcurrentHashMap.newKeySet();
+    private volatile boolean closing;
+    private final Thread writer;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter backpressure;
+    private final Counter failed;
+
+    public SummaryWriteBehind(SummaryRepository summaryRepository,
+                              SummarySearchIndex searchIndex,
+                              TransactionTemplate transactionTemplate,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.persistence.write-behind.enabled:true}") boolean enabled,
+                              @Value("${app.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                              @Value("${app.persistence.write-behind.batch-size:50}") int batchSize,
+                              @Value("${app.persistence.write-behind.read-wait-ms:2000}") long readWaitMs) {
+        this.summaryRepository = summaryRepository;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.readWaitMs = readWaitMs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.flushTimer = Timer.builder("summarizer.persistence.flush")
+                .description("Time to insert one batch of summaries")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("summarizer.persistence.batch.size")
+                .description("Summaries inserted per flush")
+                .register(meterRegistry);
+        this.backpressure = Counter.builder("summarizer.persistence.backpressure")
+                .description("Saves that waited because the write-behind queue was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("summarizer.persistence.failed")
+                .description("Summaries that could not be inserted")
+                .register(meterRegistry);
+        Gauge.builder("summarizer.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Summaries waiting to be written")
+                .register(meterRegistry);
+
+        alignSequence(jdbcTemplate);
+        this.writer = new Thread(this::run, "summary-writer");
+        writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Queues {@code summary} for insertion; the future completes with the saved row (id assigned) once
+     * its batch commits. Blocks while the queue is full, unless called on a non-blocking thread.
+     */
+    public CompletableFuture<Summary> enqueue(Summary summary) {
+        if (!enabled || closing) {
+            return CompletableFuture.completedFuture(indexed(summaryRepository.save(summary)));
+        }
+        Pending pending = new Pending(summary, new CompletableFuture<>());
+        unsaved.add(pending.saved());
+        pending.saved().whenComplete((saved, error) -> unsaved.remove(pending.saved()));
+        if (queue.offer(pending)) {
+            return pending.saved();
+        }
+        backpressure.increment();
+        if (!Schedulers.isInNonBlockingThread()) {
+            put(pending);
+            return pending.saved();
+        }
+        // Never park an event loop (e.g. a stream's doOnComplete): wait for room on a worker instead
+        try {
+            Schedulers.boundedElastic().schedule(() -> put(pending));
+        } catch (RejectedExecutionException e) {
+            failed.increment();
+            logger.warn("Summary dropped, write-behind queue and overflow are full");
+            pending.saved().completeExceptionally(e);
+        }
+        return pending.saved();
+    }
+
+    /**
+     * Queues {@code summary} and waits for it to be written, for callers that need its id.
+     */
+    public Summary save(Summary summary) {
+        try {
+            return enqueue(summary).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits, up to {@code app.persistence.write-behind.read-wait-ms}, until every summary queued before
+     * this call is written and searchable, so a history read right after a stream ends sees its summary.
+     */
+    public void awaitFlushed() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readWaitMs);
+        try {
+            CompletableFuture.allOf(unsaved.toArray(CompletableFuture[]::new)).get(readWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // A row that failed is as written as it will get
+        } catch (TimeoutException e) {
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        searchIndex.awaitIndexed(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private void put(Pending pending) {
+        if (closing) {
+            // The writer may already have drained the queue for the last time
+            flush(List.of(pending));
+            return;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.saved().completeExceptionally(new IllegalStateException("Interrupted while waiting to save summary", e));
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!closing || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: the loop drains what is left
+                closing = true;
+            } catch (RuntimeException e) {
+                logger.warn("Summary writer error message={}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    summaryRepository.saveAll(batch.stream().map(Pending::summary).toList()));
+            batch.forEach(pending -> pending.saved().complete(indexed(pending.summary())));
+        } catch (RuntimeException e) {
+            // One bad row (e.g. over a column length) must not lose the others: retry them one by one
+            logger.warn("Summary batch insert failed, retrying individually size={} message={}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                pending.summary().setId(null);
+                try {
+                    Summary saved = transactionTemplate.execute(status -> summaryRepository.save(pending.summary()));
+                    pending.saved().complete(indexed(saved));
+                } catch (RuntimeException rowError) {
+                    failed.increment();
+                    logger.warn("Summary insert failed message={}", rowError.getMessage());
+                    pending.saved().completeExceptionally(rowError);
+                }
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+    }
+
+    /** Committed rows become searchable. */
+    private Summary indexed(Summary summary) {
+        searchIndex.add(summary);
+        return summary;
+    }
+
+    /**
+     * Ids used to come from an identity column. The pooled sequence hands out ranges below its current
+     * value, so on a database with existing rows it is moved past the highest id once.
+     */
+    private void alignSequence(JdbcTemplate jdbcTemplate) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM summaries", Long.class);
+            Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE, Long.class);
+            if (maxId != null && next != null && maxId >= next - Summary.ID_ALLOCATION_SIZE) {
+                long restart = maxId + Summary.ID_ALLOCATION_SIZE + 1;
+                jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + restart);
+                logger.info("Summary id sequence moved past existing rows maxId={} restartWith={}", maxId, restart);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not align summary id sequence message={}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closing = true;
+        if (!writer.isAlive()) {
+            return;
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            logger.warn("Summary writer did not finish before shutdown pending={}", queue.size());
+            return;
+        }
+        // Saves that were queued while the writer was exiting
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        logger.info("Summary writer flushed on shutdown");
+    }
+}
@@ -30,6 +30,14 @@ public class UrlFetchingService {
      * On 403, retries once with a search-engine referrer to work around sites that block direct access.
      */
     public String fetchArticleContent(String url) throws IOException {
+        return extractArticleContent(fetchDocument(url), url);
+    }
+
+    /**
+     * Downloads and parses the page (network stage only). Pair with {@link #extractArticleContent(Document, String)}
+     * and {@link #extractArticleTitle(Document)} to get content and title from a single request.
+     */
+    public Document fetchDocument(String url) throws IOException {
         logger.info("Fetching content from URL: {}", url);
 
         // Validate URL
@@ -40,21 +48,23 @@ public class UrlFetchingService {
         }
 
         String referrer = toOriginReferrer(url);
-        Document doc;
-
         try {
-            doc = fetchDocument(url, referrer);
+            return fetchDocument(url, referrer);
         } catch (HttpStatusException e) {
             if (e.getStatusCode() == 403 && !GOOGLE_REFERRER.equals(referrer)) {
                 logger.info("Got 403 for URL, retrying with search-engine referrer: {}", url);
-                doc = fetchDocument(url, GOOGLE_REFERRER);
-            } else {
-                throw e;
+                return fetchDocument(url, GOOGLE_REFERRER);
             }
+            throw e;
         }
+    }
 
+    /**
+     * Extracts and normalizes article text from an already fetched page (CPU stage only).
+     */
+    public String extractArticleContent(Document doc, String url) throws IOException {
         // Try multiple strategies to extract article content
-        String content = extractArticleContent(doc);
+        String content = selectArticleContent(doc);
         if (content == null) content = "";
 
         if (content.trim().isEmpty()) {
@@ -71,12 +81,13 @@ public class UrlFetchingService {
 
         logger.info("Extracted {} characters from URL", content.length());
         return content.trim()
-                .replaceAll("\\s+", " ") // Normalize whitespace
+                .replaceAll("[\\t\\x0B\\f\\r ]+", " ") // Normalize whitespace, keeping paragraph breaks
+                .replaceAll(" ?\n ?", "\n")
                 .replaceAll("\n{3,}", "\n\n"); // Remove excessive newlines
     }
 
     /**
-     * Performs the HTTP GET with browser-like headers. Used by fetchArticleContent and fetchArticleTitle.
+     * Performs the HTTP GET with browser-like headers. Used by {@link #fetchDocument(String)}.
      */
     private Document fetchDocument(String url, String referrer) throws IOException {
         return Jsoup.connect(url)
@@ -97,7 +108,7 @@ public class UrlFetchingService {
     /**
      * Attempts to extract article content using common content selectors.
      */
-    private String extractArticleContent(Document doc) {
+    private String selectArticleContent(Document doc) {
         // Common article content selectors (in order of preference)
         String[] selectors = {
                 "article",
@@ -116,7 +127,7 @@ public class UrlFetchingService {
             Elements elements = doc.select(selector);
             if (!elements.isEmpty()) {
                 String content = elements.stream()
-                        .map(Element::text)
+                        .map(UrlFetchingService::blockText)
                         .filter(text -> text.length() > 100) // Ensure substantial content
                         .collect(Collectors.joining("\n\n"));
                 
@@ -129,39 +140,48 @@ public class UrlFetchingService {
         return null;
     }
 
+    /**
+     * Text of a content element with paragraph breaks preserved, so long articles can later be
+     * split on paragraph boundaries. Falls back to the flattened text when there are no paragraphs.
+     */
+    private static String blockText(Element element) {
+        Elements paragraphs = element.select("p, h2, h3");
+        if (paragraphs.size() < 2) {
+            return element.text();
+        }
+        return paragraphs.stream()
+                .map(Element::text)
+                .filter(text -> !text.isBlank())
+                .collect(Collectors.joining("\n\n"));
+    }
+
     /**
      * Extracts the article title from the URL.
      */
     public String fetchArticleTitle(String url) throws IOException {
         try {
-            String referrer = toOriginReferrer(url);
-            Document doc;
-            try {
-                doc = fetchDocument(url, referrer);
-            } catch (HttpStatusException e) {
-                if (e.getStatusCode() == 403 && !GOOGLE_REFERRER.equals(referrer)) {
-                    doc = fetchDocument(url, GOOGLE_REFERRER);
-                } else {
-                    throw e;
-                }
-            }
-
-            // Try multiple title selectors
-            String title = doc.select("meta[property='og:title']").attr("content");
-            if (title.isEmpty()) {
-                title = doc.select("meta[name='twitter:title']").attr("content");
-            }
-            if (title.isEmpty()) {
-                title = doc.title();
-            }
-
-            return title.trim();
+            return extractArticleTitle(fetchDocument(url));
         } catch (Exception e) {
             logger.warn("Could not fetch title from URL: {}", url, e);
             return "Untitled Article";
         }
     }
 
+    /**
+     * Extracts the article title from an already fetched page.
+     */
+    public String extractArticleTitle(Document doc) {
+        // Try multiple title selectors
+        String title = doc.select("meta[property='og:title']").attr("content");
+        if (title.isEmpty()) {
+            title = doc.select("meta[name='twitter:title']").attr("content");
+        }
+        if (title.isEmpty()) {
+            title = doc.title();
+        }
+        return title.trim();
+    }
+
     /** Build a referrer string from the URL origin (e.g. https://www.science.org) to look more like a browser. */
     private static String toOriginReferrer(String url) {
         if (url == null || url.isBlank()) return "";
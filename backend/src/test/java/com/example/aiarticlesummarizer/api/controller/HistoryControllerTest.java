@@ -0,0 +1,148 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * History and auth stay responsive while 50 blocking summaries wait on a slow model with a database
+ * pool of two connections: no connection may be held across the model call.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.hikari.maximum-pool-size=2",
+                "spring.datasource.hikari.connection-timeout=5000"})
+@ActiveProfiles("test")
+class HistoryControllerTest {
+
+    private static final int SUMMARIES = 50;
+    private static final Duration RESPONSIVE = Duration.ofSeconds(1);
+
+    /** Model calls in progress, and the gate that lets them answer. */
+    private static final AtomicInteger inModel = new AtomicInteger();
+    private static final CountDownLatch release = new CountDownLatch(1);
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(callers)
+            .build();
+
+    @TestConfiguration
+    static class SlowModel {
+
+        /** Answers only once the test opens the gate, like a generation that takes minutes. */
+        @Bean
+        @Primary
+        ChatModel stubChatModel() {
+            return prompt -> {
+                inModel.incrementAndGet();
+                try {
+                    release.await(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inModel.decrementAndGet();
+                }
+                return new ChatResponse(List.of(new Generation(new AssistantMessage("The bank raised rates."))));
+            };
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void historyAnswersWhileSummariesWaitOnTheModel() throws Exception {
+        String token = register("reader");
+
+        List<CompletableFuture<HttpResponse<String>>> summaries = new ArrayList<>();
+        for (int i = 0; i < SUMMARIES; i++) {
+            String body = objectMapper.createObjectNode()
+                    .put("content", "Article " + i + ". The central bank raised interest rates again. Analysts expected it.")
+                    .put("targetLength", "short")
+                    .toString();
+            summaries.add(client.sendAsync(post("/api/v1/summarize", body).header("Authorization", "Bearer " + token).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        // Only as many as there are connections get this far if a connection is held across the call
+        await("all summaries waiting on the model").atMost(Duration.ofSeconds(30))
+                .until(() -> inModel.get() == SUMMARIES);
+
+        // Every summary is inside the model call; the two connections must still be free
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            HttpResponse<String> history = client.send(get("/api/v1/history?limit=10", token), HttpResponse.BodyHandlers.ofString());
+            assertThat(history.statusCode()).isEqualTo(200);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(RESPONSIVE);
+        }
+        long start = System.nanoTime();
+        register("writer");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(RESPONSIVE);
+
+        release.countDown();
+        for (CompletableFuture<HttpResponse<String>> summary : summaries) {
+            assertThat(summary.get(30, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        }
+        HttpResponse<String> history = client.send(get("/api/v1/history?limit=100", token), HttpResponse.BodyHandlers.ofString());
+        assertThat(objectMapper.readTree(history.body())).hasSize(SUMMARIES);
+    }
+
+    private String register(String username) throws Exception {
+        String body = objectMapper.createObjectNode()
+                .put("username", username)
+                .put("password", "password")
+                .toString();
+        HttpResponse<String> response = client.send(post("/api/auth/register", body).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode auth = objectMapper.readTree(response.body());
+        return auth.get("token").asText();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.aiarticlesummarizer.api.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many open {@code /api/v2/summarize/stream} connections against a model that never finishes: every
+ * stream keeps receiving heartbeats, and the server does not hold a thread per connection. Tomcat is
+ * capped well below the number of streams, so a stream that kept its request thread would starve the rest.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.streaming.heartbeat-seconds=1", "server.tomcat.threads.max=" + ReactiveSummarizationControllerTest.REQUEST_THREADS})
+@ActiveProfiles("test")
+class ReactiveSummarizationControllerTest {
+
+    static final int REQUEST_THREADS = 16;
+    private static final int STREAMS = 200;
+    private static final int HEARTBEATS = 2;
+    /** Server threads allowed on top of the idle baseline: pools, schedulers and timers, not one per stream. */
+    private static final int MAX_EXTRA_THREADS = 64;
+
+    @LocalServerPort
+    private int port;
+
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(readers)
+            .build();
+    private final List<Stream<String>> openStreams = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class NeverFinishingModel {
+
+        /** Emits one token, then stays silent without completing. */
+        @Bean
+        @Primary
+        ChatModel stubChatModel() {
+            return new ChatModel() {
+                @Override
+                public ChatResponse call(Prompt prompt) {
+                    throw new UnsupportedOperationException("streams only");
+                }
+
+                @Override
+                public Flux<ChatResponse> stream(Prompt prompt) {
+                    return Flux.concat(
+                            Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("Partial"))))),
+                            Flux.never());
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        openStreams.forEach(Stream::close);
+        readers.shutdownNow();
+    }
+
+    @Test
+    void idleStreamsGetHeartbeatsWithoutAThreadEach() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+
+        CountDownLatch heartbeating = new CountDownLatch(STREAMS);
+        AtomicInteger chunks = new AtomicInteger();
+        for (int i = 0; i < STREAMS; i++) {
+            open(i).thenAccept(response -> readers.execute(() -> {
+                openStreams.add(response.body());
+                int heartbeats = 0;
+                for (String line : (Iterable<String>) response.body()::iterator) {
+                    if (line.equals("event:chunk")) {
+                        chunks.incrementAndGet();
+                    } else if (line.startsWith(":heartbeat") && ++heartbeats == HEARTBEATS) {
+                        heartbeating.countDown();
+                    }
+                }
+            }));
+        }
+
+        // Client reads run on virtual threads, which the platform thread count does not include
+        int peak = baseline;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!heartbeating.await(100, TimeUnit.MILLISECONDS) && System.nanoTime() < deadline) {
+            peak = Math.max(peak, threads.getThreadCount());
+        }
+        peak = Math.max(peak, threads.getThreadCount());
+
+        assertThat(heartbeating.getCount()).as("streams still waiting for %d heartbeats", HEARTBEATS).isZero();
+        assertThat(chunks).hasValue(STREAMS);
+        assertThat(peak - baseline)
+                .as("server threads over baseline with %d streams open", STREAMS)
+                .isLessThan(MAX_EXTRA_THREADS);
+    }
+
+    private CompletableFuture<HttpResponse<Stream<String>>> open(int i) {
+        String body = """
+                {"content": "Article %d. The central bank raised interest rates again. Analysts expected the move.",
+                 "targetLength": "short"}
+                """.formatted(i);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v2/summarize/stream"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+    }
+}
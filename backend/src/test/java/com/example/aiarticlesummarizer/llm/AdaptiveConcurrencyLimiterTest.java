@@ -0,0 +1,177 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives {@link AdmissionControlledChatModel} with a fake model and a limit of one, so the order in
+ * which queued callers reach the model is exactly the scheduler's order.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long QUEUE_WAIT_MS = 30_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> served = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Records who each call was made for, in the order the calls reach the model. */
+    private final ChatModel fakeModel = prompt -> {
+        served.add(prompt.getContents());
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("ok"))));
+    };
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void queuedCallsAreServedByClass() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 60_000, "");
+        ChatModel model = new AdmissionControlledChatModel(fakeModel, limiter);
+
+        AdaptiveConcurrencyLimiter.Permit blocker = limiter.acquire(SchedulingContext.DEFAULT);
+        List<Future<?>> calls = new ArrayList<>();
+        calls.add(call(model, "batch", Priority.BACKGROUND, "background"));
+        calls.add(call(model, "api", Priority.STANDARD, "standard"));
+        calls.add(call(model, "browser", Priority.INTERACTIVE, "interactive"));
+        awaitQueued(3);
+
+        blocker.release(true);
+        awaitAll(calls);
+
+        assertThat(served).containsExactly("interactive", "standard", "background");
+    }
+
+    @Test
+    void backloggedUsersGetTheirConfiguredShare() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 60_000, "gold=3");
+        ChatModel model = new AdmissionControlledChatModel(fakeModel, limiter);
+
+        AdaptiveConcurrencyLimiter.Permit blocker = limiter.acquire(SchedulingContext.DEFAULT);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(call(model, "gold", Priority.STANDARD, "gold"));
+            calls.add(call(model, "bronze", Priority.STANDARD, "bronze"));
+            calls.add(call(model, "tin", Priority.STANDARD, "tin"));
+        }
+        awaitQueued(60);
+
+        blocker.release(true);
+        awaitAll(calls);
+
+        // Per round of 5 slots: gold 3, bronze 1, tin 1
+        List<String> firstRounds = served.subList(0, 20);
+        assertThat(firstRounds).filteredOn("gold"::equals).hasSize(12);
+        assertThat(firstRounds).filteredOn("bronze"::equals).hasSize(4);
+        assertThat(firstRounds).filteredOn("tin"::equals).hasSize(4);
+    }
+
+    @Test
+    void agedBackgroundCallIsServedBeforeLaterInteractiveCalls() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 50, "");
+        ChatModel model = new AdmissionControlledChatModel(fakeModel, limiter);
+
+        AdaptiveConcurrencyLimiter.Permit blocker = limiter.acquire(SchedulingContext.DEFAULT);
+        List<Future<?>> calls = new ArrayList<>();
+        calls.add(call(model, "batch", Priority.BACKGROUND, "background"));
+        awaitQueued(1);
+        // Two aging steps: the background call now ranks as interactive and was queued first
+        Thread.sleep(150);
+        calls.add(call(model, "browser", Priority.INTERACTIVE, "interactive-1"));
+        awaitQueued(2);
+        calls.add(call(model, "browser", Priority.INTERACTIVE, "interactive-2"));
+        awaitQueued(3);
+
+        blocker.release(true);
+        awaitAll(calls);
+
+        assertThat(served).containsExactly("background", "interactive-1", "interactive-2");
+    }
+
+    @Test
+    void backgroundCallsMayUseAtMostHalfTheQueue() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 60_000, "");
+        ChatModel model = new AdmissionControlledChatModel(fakeModel, limiter);
+
+        AdaptiveConcurrencyLimiter.Permit blocker = limiter.acquire(SchedulingContext.DEFAULT);
+        List<Future<?>> calls = new ArrayList<>();
+        // Calls of one user are served in arrival order, so each is queued before the next is made
+        calls.add(call(model, "batch", Priority.BACKGROUND, "background-1"));
+        awaitQueued(1);
+        calls.add(call(model, "batch", Priority.BACKGROUND, "background-2"));
+        awaitQueued(2);
+
+        try (SchedulingContext.Scope ignored = new SchedulingContext("batch", Priority.BACKGROUND).bind()) {
+            assertThatThrownBy(() -> model.call(new Prompt("background-3")))
+                    .isInstanceOf(OverloadedException.class);
+        }
+        // The other half is still open to interactive callers
+        calls.add(call(model, "browser", Priority.INTERACTIVE, "interactive-1"));
+        awaitQueued(3);
+        calls.add(call(model, "browser", Priority.INTERACTIVE, "interactive-2"));
+        awaitQueued(4);
+        try (SchedulingContext.Scope ignored = new SchedulingContext("browser", Priority.INTERACTIVE).bind()) {
+            assertThatThrownBy(() -> model.call(new Prompt("interactive-3")))
+                    .isInstanceOf(OverloadedException.class);
+        }
+
+        blocker.release(true);
+        awaitAll(calls);
+
+        assertThat(served).containsExactly("interactive-1", "interactive-2", "background-1", "background-2");
+        assertThat(meterRegistry.find("summarizer.admission.rejected").tag("priority", "background").counter().count())
+                .isEqualTo(1);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int queueCapacity, long agingStepMs, String userWeights) {
+        // A fixed limit of one keeps every other caller queued until the blocker is released
+        return new AdaptiveConcurrencyLimiter(meterRegistry, 1, 1, 1, queueCapacity, QUEUE_WAIT_MS, 2.0, 0.9,
+                agingStepMs, QUEUE_WAIT_MS, userWeights);
+    }
+
+    private Future<?> call(ChatModel model, String user, Priority priority, String label) {
+        return callers.submit(new SchedulingContext(user, priority).wrap(() -> model.call(new Prompt(label))));
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queued() < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + expected + " queued calls but found " + queued());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private double queued() {
+        return meterRegistry.find("summarizer.admission.queue.depth").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+
+    private static void awaitAll(List<Future<?>> calls) throws Exception {
+        for (Future<?> call : calls) {
+            call.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.aiarticlesummarizer.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairWaitQueueTest {
+
+    private static final long AGING_STEP = TimeUnit.SECONDS.toNanos(10);
+
+    private final FairWaitQueue<String> queue = new FairWaitQueue<>(AGING_STEP);
+
+    @Test
+    void servesHigherClassesFirst() {
+        queue.add("background", new SchedulingContext("a", Priority.BACKGROUND), 1.0, 0);
+        queue.add("standard", new SchedulingContext("b", Priority.STANDARD), 1.0, 0);
+        queue.add("interactive", new SchedulingContext("c", Priority.INTERACTIVE), 1.0, 0);
+
+        assertThat(drain(0)).containsExactly("interactive", "standard", "background");
+    }
+
+    @Test
+    void equalWeightsGiveOneSlotPerUserPerRound() {
+        for (int i = 0; i < 6; i++) {
+            queue.add("heavy-" + i, new SchedulingContext("heavy", Priority.STANDARD), 1.0, 0);
+        }
+        for (int i = 0; i < 2; i++) {
+            queue.add("light-" + i, new SchedulingContext("light", Priority.STANDARD), 1.0, 0);
+        }
+
+        // The light user's calls are not stuck behind the heavy user's backlog
+        assertThat(drain(0)).containsExactly(
+                "heavy-0", "light-0", "heavy-1", "light-1", "heavy-2", "heavy-3", "heavy-4", "heavy-5");
+    }
+
+    @Test
+    void sharesFollowConfiguredWeights() {
+        for (int i = 0; i < 30; i++) {
+            queue.add("gold", new SchedulingContext("gold", Priority.STANDARD), 3.0, 0);
+            queue.add("bronze", new SchedulingContext("bronze", Priority.STANDARD), 1.0, 0);
+        }
+
+        List<String> firstRounds = drain(0).subList(0, 12);
+
+        assertThat(firstRounds).filteredOn("gold"::equals).hasSize(9);
+        assertThat(firstRounds).filteredOn("bronze"::equals).hasSize(3);
+    }
+
+    @Test
+    void userReturningAfterIdleDoesNotBankCredit() {
+        queue.add("first", new SchedulingContext("steady", Priority.STANDARD), 1.0, 0);
+        queue.add("second", new SchedulingContext("steady", Priority.STANDARD), 1.0, 0);
+        queue.add("third", new SchedulingContext("steady", Priority.STANDARD), 1.0, 0);
+        assertThat(queue.poll(0).item).isEqualTo("first");
+        assertThat(queue.poll(0).item).isEqualTo("second");
+
+        // The newcomer starts at the virtual clock rather than at zero: it gets the next slot, not a burst
+        queue.add("newcomer-0", new SchedulingContext("idle", Priority.STANDARD), 1.0, 0);
+        queue.add("newcomer-1", new SchedulingContext("idle", Priority.STANDARD), 1.0, 0);
+        queue.add("fourth", new SchedulingContext("steady", Priority.STANDARD), 1.0, 0);
+
+        assertThat(drain(0)).containsExactly("newcomer-0", "third", "newcomer-1", "fourth");
+    }
+
+    @Test
+    void backgroundWaiterIsPromotedOneClassPerAgingStep() {
+        queue.add("background", new SchedulingContext("batch", Priority.BACKGROUND), 1.0, 0);
+        queue.add("standard", new SchedulingContext("api", Priority.STANDARD), 1.0, 0);
+        assertThat(queue.poll(AGING_STEP - 1).item).isEqualTo("standard");
+
+        // One step later the background waiter competes as standard and has the earlier finish time
+        queue.add("standard-2", new SchedulingContext("api", Priority.STANDARD), 1.0, AGING_STEP - 1);
+        assertThat(queue.poll(AGING_STEP).item).isEqualTo("background");
+    }
+
+    @Test
+    void agedBackgroundWaiterOvertakesNewInteractiveCalls() {
+        queue.add("background", new SchedulingContext("batch", Priority.BACKGROUND), 1.0, 0);
+        long later = 2 * AGING_STEP;
+        queue.add("interactive", new SchedulingContext("user", Priority.INTERACTIVE), 1.0, later);
+
+        assertThat(queue.poll(later - 1).item).isEqualTo("interactive");
+
+        queue.add("interactive-2", new SchedulingContext("user", Priority.INTERACTIVE), 1.0, later);
+        assertThat(queue.poll(later).item).isEqualTo("background");
+    }
+
+    @Test
+    void removeDropsWaiterAndClassCount() {
+        queue.add("a", new SchedulingContext("u", Priority.BACKGROUND), 1.0, 0);
+        queue.add("b", new SchedulingContext("u", Priority.INTERACTIVE), 1.0, 0);
+
+        assertThat(queue.remove("a")).isTrue();
+        assertThat(queue.remove("a")).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.size(Priority.BACKGROUND)).isZero();
+        assertThat(queue.size(Priority.INTERACTIVE)).isEqualTo(1);
+    }
+
+    private List<String> drain(long nowNanos) {
+        List<String> served = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            served.add(queue.poll(nowNanos).item);
+        }
+        return served;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.ai.ollama.management.ModelManagementOptions;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Routing and health of {@link OllamaEndpointPool} against stub Ollama servers over real HTTP, with
+ * the chat models built as in {@code OllamaConfig}.
+ */
+class OllamaEndpointPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        callers.shutdownNow();
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void routesToLowestExpectedCompletionTime() {
+        StubOllamaServer fast = server(10, 200);
+        StubOllamaServer slow = server(10, 50);
+        OllamaEndpointPool pool = pool(List.of(fast.baseUrl(), slow.baseUrl()), 0, 2);
+        ChatModel model = chatModel(pool);
+        OllamaEndpoint fastEndpoint = endpoint(pool, fast);
+        OllamaEndpoint slowEndpoint = endpoint(pool, slow);
+
+        warmUp(model, pool);
+        assertThat(fastEndpoint.getTokensPerSecond()).isCloseTo(200, within(1.0));
+        assertThat(slowEndpoint.getTokensPerSecond()).isCloseTo(50, within(1.0));
+
+        // Idle: (0 + 1) / 200 beats (0 + 1) / 50
+        for (int i = 0; i < 20; i++) {
+            assertThat(pool.select()).isSameAs(fastEndpoint);
+        }
+        // Four calls outstanding on the fast host: 5 / 200 is now worse than 1 / 50
+        for (int i = 0; i < 4; i++) {
+            fastEndpoint.acquire();
+        }
+        assertThat(pool.select()).isSameAs(slowEndpoint);
+        for (int i = 0; i < 4; i++) {
+            fastEndpoint.release();
+        }
+    }
+
+    @Test
+    void concurrentLoadFollowsThroughput() throws Exception {
+        StubOllamaServer fast = server(100, 200);
+        StubOllamaServer slow = server(400, 50);
+        OllamaEndpointPool pool = pool(List.of(fast.baseUrl(), slow.baseUrl()), 0, 2);
+        ChatModel model = chatModel(pool);
+        warmUp(model, pool);
+        int fastBefore = fast.chats();
+        int slowBefore = slow.chats();
+
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            calls.add(callers.submit(() -> model.call(new Prompt("article"))));
+        }
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+
+        int fastCalls = fast.chats() - fastBefore;
+        int slowCalls = slow.chats() - slowBefore;
+        assertThat(fastCalls + slowCalls).isEqualTo(50);
+        // Roughly 4:1 by throughput; the slow host still takes a share once the fast one is busy
+        assertThat(slowCalls).isPositive();
+        assertThat(fastCalls).isGreaterThanOrEqualTo(3 * slowCalls);
+    }
+
+    @Test
+    void failedCallsRemoveEndpointAfterThreshold() {
+        StubOllamaServer live = server(5, 100);
+        String dead = StubOllamaServer.deadUrl();
+        OllamaEndpointPool pool = pool(List.of(live.baseUrl(), dead), 0, 2);
+        ChatModel model = chatModel(pool);
+        OllamaEndpoint deadEndpoint = pool.endpoints().get(1);
+
+        int failures = 0;
+        for (int i = 0; i < 40 && deadEndpoint.isHealthy(); i++) {
+            try {
+                model.call(new Prompt("article"));
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+
+        assertThat(deadEndpoint.isHealthy()).isFalse();
+        assertThat(failures).isEqualTo(2);
+        int liveBefore = live.chats();
+        for (int i = 0; i < 20; i++) {
+            model.call(new Prompt("article"));
+        }
+        assertThat(live.chats() - liveBefore).isEqualTo(20);
+    }
+
+    @Test
+    void healthChecksRemoveDeadEndpointsAndReadmitRecoveredOnes() {
+        StubOllamaServer live = server(5, 100);
+        StubOllamaServer flaky = server(5, 100);
+        String dead = StubOllamaServer.deadUrl();
+        OllamaEndpointPool pool = pool(List.of(live.baseUrl(), flaky.baseUrl(), dead), 100, 2);
+        ChatModel model = chatModel(pool);
+        OllamaEndpoint flakyEndpoint = endpoint(pool, flaky);
+        OllamaEndpoint deadEndpoint = pool.endpoints().get(2);
+
+        // No calls needed: the background check takes the dead endpoint out
+        await().atMost(Duration.ofSeconds(5)).until(() -> !deadEndpoint.isHealthy());
+        assertThat(flakyEndpoint.isHealthy()).isTrue();
+
+        flaky.stop();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !flakyEndpoint.isHealthy());
+        int flakyBefore = flaky.chats();
+        for (int i = 0; i < 20; i++) {
+            model.call(new Prompt("article"));
+        }
+        assertThat(flaky.chats()).isEqualTo(flakyBefore);
+
+        flaky.start();
+        await().atMost(Duration.ofSeconds(5)).until(flakyEndpoint::isHealthy);
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            model.call(new Prompt("article"));
+            return flaky.chats() > flakyBefore;
+        });
+        assertThat(deadEndpoint.isHealthy()).isFalse();
+    }
+
+    private StubOllamaServer server(long delayMs, double tokensPerSecond) {
+        StubOllamaServer server = new StubOllamaServer(delayMs, tokensPerSecond);
+        resources.add(server);
+        return server;
+    }
+
+    private OllamaEndpointPool pool(List<String> baseUrls, long healthCheckIntervalMs, int failureThreshold) {
+        OllamaChatOptions options = OllamaChatOptions.builder().model("llama3").build();
+        RetryTemplate singleAttempt = RetryTemplate.builder().maxAttempts(1).build();
+        OllamaEndpointPool pool = new OllamaEndpointPool(baseUrls,
+                (url, api) -> OllamaChatModel.builder()
+                        .ollamaApi(api)
+                        .defaultOptions(options)
+                        .toolCallingManager(ToolCallingManager.builder().build())
+                        .observationRegistry(ObservationRegistry.NOOP)
+                        .modelManagementOptions(ModelManagementOptions.builder().build())
+                        .retryTemplate(singleAttempt)
+                        .build(),
+                meterRegistry, healthCheckIntervalMs, 1000, failureThreshold);
+        resources.add(0, pool);
+        return pool;
+    }
+
+    private ChatModel chatModel(OllamaEndpointPool pool) {
+        ModelResidencyManager residency = new ModelResidencyManager(pool, meterRegistry, false, 0,
+                "30m", "5m", 3, 600_000, 0, 0);
+        return new PooledOllamaChatModel(pool, residency, meterRegistry);
+    }
+
+    /** Calls until every healthy endpoint has a throughput sample, so routing no longer breaks ties at random. */
+    private static void warmUp(ChatModel model, OllamaEndpointPool pool) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> {
+            model.call(new Prompt("warm-up"));
+            return pool.endpoints().stream().allMatch(endpoint -> endpoint.getTokensPerSecond() > 0);
+        });
+    }
+
+    private static OllamaEndpoint endpoint(OllamaEndpointPool pool, StubOllamaServer server) {
+        return pool.endpoints().stream()
+                .filter(endpoint -> endpoint.getBaseUrl().equals(server.baseUrl()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.aiarticlesummarizer.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Hedged blocking calls against a scripted streaming model: losing and timed-out attempts must be cancelled. */
+class ResilientChatModelTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Deque<Supplier<Flux<ChatResponse>>> script = new ArrayDeque<>();
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    /** Target lengths the in-process fallback engine was asked for. */
+    private final List<String> extractedFor = new ArrayList<>();
+    private final ExtractiveChatModel extractive = new ExtractiveChatModel("instant", (article, targetLength) -> {
+        extractedFor.add(targetLength);
+        return "Lead of " + article;
+    });
+
+    /** Each stream subscription plays the next scripted attempt. */
+    private final ChatModel fakeModel = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            throw new UnsupportedOperationException("attempts must stream");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> script.removeFirst().get());
+        }
+    };
+
+    @Test
+    void joinsStreamedChunksIntoOneResponse() {
+        ResilientChatModel model = new ResilientChatModel(fakeModel, extractive, meterRegistry, settings(Duration.ofSeconds(5)));
+        script.add(() -> Flux.just(chunk("The bank "), chunk("raised "), chunk("rates.")));
+
+        ChatResponse response = model.call(new Prompt("article"));
+
+        assertThat(response.getResult().getOutput().getText()).isEqualTo("The bank raised rates.");
+        assertThat(ModelLabel.isDegraded(response)).isFalse();
+    }
+
+    @Test
+    void hedgeWinCancelsTheSlowAttempt() {
+        ResilientChatModel model = new ResilientChatModel(fakeModel, extractive, meterRegistry, settings(Duration.ofSeconds(5)));
+        // One quick call gives the latency window its sample, so the next call can hedge
+        script.add(() -> Flux.just(chunk("warm")));
+        model.call(new Prompt("article"));
+
+        script.add(this::neverFinishes);
+        script.add(() -> Flux.just(chunk("from "), chunk("hedge")));
+        ChatResponse response = model.call(new Prompt("article"));
+
+        assertThat(response.getResult().getOutput().getText()).isEqualTo("from hedge");
+        assertThat(response.getMetadata().<String>get(ModelLabel.ROUTE_KEY)).isEqualTo(ModelLabel.ROUTE_HEDGE);
+        assertThat(cancelled).hasValue(1);
+        assertThat(meterRegistry.find("summarizer.hedge.wins").tag("winner", "hedge").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void timedOutAttemptIsCancelled() {
+        ResilientChatModel model = new ResilientChatModel(fakeModel, extractive, meterRegistry, settings(Duration.ofMillis(200)));
+        script.add(this::neverFinishes);
+
+        assertThatThrownBy(() -> model.call(new Prompt("article")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out");
+        assertThat(cancelled).hasValue(1);
+    }
+
+    @Test
+    void failedModelFallsBackToTheInstantEngine() {
+        ResilientChatModel model = new ResilientChatModel(fakeModel, extractive, meterRegistry,
+                settings(Duration.ofSeconds(5), List.of("instant")));
+        script.add(() -> Flux.error(new IllegalStateException("model down")));
+        script.add(() -> Flux.error(new IllegalStateException("model down")));
+        Prompt prompt = new Prompt(List.of(
+                ExtractiveChatModel.systemMessage("Summarize.\nTarget length: long", "short"),
+                new UserMessage("article")));
+
+        ChatResponse blocking = model.call(prompt);
+        ChatResponse streamed = model.stream(prompt).blockLast(Duration.ofSeconds(5));
+
+        assertThat(blocking.getResult().getOutput().getText()).isEqualTo("Lead of article");
+        assertThat(ModelLabel.of(blocking, "llama3")).isEqualTo("instant (fallback)");
+        assertThat(ModelLabel.of(streamed, "llama3")).isEqualTo("instant (fallback)");
+        assertThat(ModelLabel.isDegraded(streamed)).isTrue();
+        // The target length comes from the message metadata, not the prompt text
+        assertThat(extractedFor).containsExactly("short", "short");
+    }
+
+    private Flux<ChatResponse> neverFinishes() {
+        return Flux.concat(Flux.just(chunk("partial")), Flux.<ChatResponse>never())
+                .doOnCancel(cancelled::incrementAndGet);
+    }
+
+    private static ChatResponse chunk(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static ResilientChatModel.Settings settings(Duration callTimeout) {
+        return settings(callTimeout, List.of());
+    }
+
+    private static ResilientChatModel.Settings settings(Duration callTimeout, List<String> fallbackChain) {
+        return new ResilientChatModel.Settings(fallbackChain, callTimeout, callTimeout,
+                10, 5, 0.5, 1000, 1,
+                true, "", 0.95, 1, 50, 1.0);
+    }
+}
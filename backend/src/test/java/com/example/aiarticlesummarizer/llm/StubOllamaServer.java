@@ -0,0 +1,114 @@
+package com.example.aiarticlesummarizer.llm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal Ollama HTTP API for tests: {@code /api/tags} for health checks and a non-streaming
+ * {@code /api/chat} that answers after {@code delayMs}, reporting {@code tokensPerSecond} through
+ * {@code eval_count}/{@code eval_duration} as Ollama does. Can be stopped and restarted on the same port.
+ */
+final class StubOllamaServer implements AutoCloseable {
+
+    private static final int EVAL_COUNT = 100;
+
+    private final int port;
+    private final long delayMs;
+    private final double tokensPerSecond;
+    private final AtomicInteger chats = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubOllamaServer(long delayMs, double tokensPerSecond) {
+        this(freePort(), delayMs, tokensPerSecond);
+    }
+
+    private StubOllamaServer(int port, long delayMs, double tokensPerSecond) {
+        this.port = port;
+        this.delayMs = delayMs;
+        this.tokensPerSecond = tokensPerSecond;
+        start();
+    }
+
+    /** A base URL nothing listens on. */
+    static String deadUrl() {
+        return "http://localhost:" + freePort();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    int chats() {
+        return chats.get();
+    }
+
+    synchronized void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 64);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/tags", exchange ->
+                respond(exchange, "{\"models\":[{\"name\":\"llama3:latest\",\"model\":\"llama3:latest\"}]}"));
+        server.createContext("/api/chat", this::chat);
+        server.start();
+    }
+
+    synchronized void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        chats.incrementAndGet();
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long evalNanos = (long) (EVAL_COUNT / tokensPerSecond * 1e9);
+        respond(exchange, """
+                {"model":"llama3","created_at":"2024-01-01T00:00:00Z",
+                 "message":{"role":"assistant","content":"summary"},
+                 "done":true,"done_reason":"stop","total_duration":%d,"load_duration":0,
+                 "prompt_eval_count":10,"prompt_eval_duration":1000000,
+                 "eval_count":%d,"eval_duration":%d}
+                """.formatted(evalNanos, EVAL_COUNT, evalNanos));
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
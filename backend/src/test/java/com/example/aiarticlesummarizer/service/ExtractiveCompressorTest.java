@@ -0,0 +1,151 @@
+package com.example.aiarticlesummarizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Output contract of the extractive ranking: whole sentences, in original order, within the budget. */
+class ExtractiveCompressorTest {
+
+    private static final String[] TOPIC = {
+            "central", "bank", "raised", "interest", "rates", "inflation", "prices", "lending", "mortgage",
+            "borrowing", "policy", "economists", "markets", "bonds", "currency", "savers", "credit", "growth"};
+    private static final String[] FILLER = {
+            "quarter", "figures", "monday", "statement", "officials", "board", "analysts", "forecast",
+            "reported", "expected", "domestic", "global", "households", "firms", "survey", "outlook"};
+
+    private final ExtractiveCompressor compressor =
+            new ExtractiveCompressor(new SimpleMeterRegistry(), true, 0.5, 0, 0, 5000, 30, 12);
+
+    @Test
+    void keepsWholeSentencesInOriginalOrder() {
+        List<String> sentences = sentences(200, 1);
+        String article = String.join(" ", sentences);
+
+        ExtractiveCompressor.Compressed result = compressor.compress(article);
+
+        assertThat(result.compressed()).isTrue();
+        assertThat(keptInOrder(sentences, result.text())).isBetween(2, sentences.size() - 1);
+    }
+
+    @Test
+    void staysWithinTheRatioAndTokenCap() {
+        String article = String.join(" ", sentences(200, 2));
+
+        ExtractiveCompressor.Compressed byRatio = compressor.compress(article);
+        ExtractiveCompressor.Compressed capped =
+                new ExtractiveCompressor(new SimpleMeterRegistry(), true, 0.5, 0, 120, 5000, 30, 12).compress(article);
+
+        assertThat(byRatio.tokens()).isLessThanOrEqualTo((int) Math.ceil(byRatio.originalTokens() * 0.5));
+        assertThat(byRatio.ratio()).isGreaterThan(0.3);
+        assertThat(capped.tokens()).isPositive().isLessThanOrEqualTo(120);
+        assertThat(TokenEstimator.estimate(capped.text(), TokenEstimator.Family.DEFAULT)).isLessThanOrEqualTo(120);
+    }
+
+    @Test
+    void selectStaysWithinMaxTokens() {
+        List<String> sentences = sentences(60, 3);
+
+        ExtractiveCompressor.Compressed result = compressor.select(String.join(" ", sentences), 40);
+
+        assertThat(result.tokens()).isPositive().isLessThanOrEqualTo(40);
+        assertThat(keptInOrder(sentences, result.text())).isPositive();
+    }
+
+    @Test
+    void returnsShortInputUnchanged() {
+        String article = String.join(" ", sentences(20, 4));
+        ExtractiveCompressor withFloor = new ExtractiveCompressor(new SimpleMeterRegistry(), true, 0.5, 800, 0, 5000, 30, 12);
+
+        ExtractiveCompressor.Compressed result = withFloor.compress(article);
+
+        assertThat(result.compressed()).isFalse();
+        assertThat(result.text()).isSameAs(article);
+    }
+
+    @Test
+    void dropsOffTopicSentences() {
+        List<String> sentences = new ArrayList<>(sentences(40, 5));
+        String offTopic = "The cafeteria menu featured pumpkin soup with toasted walnuts.";
+        sentences.add(20, offTopic);
+
+        ExtractiveCompressor.Compressed result = compressor.compress(String.join(" ", sentences));
+
+        assertThat(result.text()).doesNotContain(offTopic);
+    }
+
+    @Test
+    void keepsARepeatedSentenceOnce() {
+        List<String> sentences = new ArrayList<>(sentences(40, 6));
+        String quote = "Central bank officials raised interest rates to curb inflation in mortgage lending.";
+        sentences.add(5, quote);
+        sentences.add(25, quote);
+
+        ExtractiveCompressor.Compressed result = compressor.compress(String.join(" ", sentences));
+
+        assertThat(result.text().indexOf(quote)).isEqualTo(result.text().lastIndexOf(quote));
+    }
+
+    @Test
+    void reusedScratchSpaceGivesTheSameResultAsAFreshThread() throws Exception {
+        String large = String.join(" ", sentences(600, 7));
+        String small = String.join(" ", sentences(80, 8));
+        ExecutorService fresh = Executors.newSingleThreadExecutor();
+        try {
+            String expected = CompletableFuture.supplyAsync(() -> compressor.compress(small).text(), fresh).get();
+
+            compressor.compress(large);
+            assertThat(compressor.compress(small).text()).isEqualTo(expected);
+        } finally {
+            fresh.shutdownNow();
+        }
+    }
+
+    /** Distinct sentences mixing topic and filler words; earlier topic words are more frequent. */
+    private static List<String> sentences(int count, long seed) {
+        Random random = new Random(seed);
+        Set<String> sentences = new LinkedHashSet<>();
+        while (sentences.size() < count) {
+            StringBuilder sentence = new StringBuilder();
+            int words = 6 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                String word = random.nextInt(3) > 0
+                        ? TOPIC[Math.min(random.nextInt(TOPIC.length), random.nextInt(TOPIC.length))]
+                        : FILLER[random.nextInt(FILLER.length)];
+                sentence.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+            }
+            sentences.add(sentence.append('.').toString());
+        }
+        return new ArrayList<>(sentences);
+    }
+
+    /**
+     * Number of the given sentences the text is made of, asserting that it contains nothing else
+     * and that they appear in their original order.
+     */
+    private static int keptInOrder(List<String> sentences, String text) {
+        int position = 0;
+        int kept = 0;
+        for (String sentence : sentences) {
+            if (text.startsWith(sentence, position)) {
+                position += sentence.length();
+                while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                    position++;
+                }
+                kept++;
+            }
+        }
+        assertThat(position).as("text is an in-order selection of the sentences").isEqualTo(text.length());
+        return kept;
+    }
+}
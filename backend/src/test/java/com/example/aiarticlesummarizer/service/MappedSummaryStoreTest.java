@@ -0,0 +1,126 @@
+package com.example.aiarticlesummarizer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Reopen, wrap-around eviction and crash recovery of the on-disk summary cache tier. */
+class MappedSummaryStoreTest {
+
+    /** Record header (10 bytes) + 4-byte key + 20-byte value. */
+    private static final int RECORD_BYTES = 34;
+    /** File header plus room for exactly five records. */
+    private static final int CAPACITY = 16 + 5 * RECORD_BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveReopen() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (MappedSummaryStore store = new MappedSummaryStore(file, CAPACITY)) {
+            store.put("k001", value(1));
+            store.put("k002", value(2));
+            store.put("k001", value(3));
+        }
+
+        try (MappedSummaryStore reopened = new MappedSummaryStore(file, CAPACITY)) {
+            assertThat(reopened.size()).isEqualTo(2);
+            // The later record for a key wins
+            assertThat(reopened.get("k001")).isEqualTo(value(3));
+            assertThat(reopened.get("k002")).isEqualTo(value(2));
+            assertThat(reopened.get("k004")).isNull();
+        }
+    }
+
+    @Test
+    void wrapEvictsTheOldestRecords() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (MappedSummaryStore store = new MappedSummaryStore(file, CAPACITY)) {
+            for (int i = 1; i <= 5; i++) {
+                assertThat(store.put(key(i), value(i))).isZero();
+            }
+
+            // The file is full: the sixth and seventh records overwrite the first and second
+            assertThat(store.put(key(6), value(6))).isEqualTo(1);
+            assertThat(store.put(key(7), value(7))).isEqualTo(1);
+
+            assertThat(store.get(key(1))).isNull();
+            assertThat(store.get(key(2))).isNull();
+            assertThat(store.get(key(3))).isEqualTo(value(3));
+            assertThat(store.get(key(7))).isEqualTo(value(7));
+            assertThat(store.size()).isEqualTo(5);
+        }
+
+        // Only the records before the write position are recovered after a wrap
+        try (MappedSummaryStore reopened = new MappedSummaryStore(file, CAPACITY)) {
+            assertThat(reopened.get(key(6))).isEqualTo(value(6));
+            assertThat(reopened.get(key(7))).isEqualTo(value(7));
+            assertThat(reopened.get(key(3))).isNull();
+            assertThat(reopened.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void corruptTailRecordIsDroppedOnRecovery() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (MappedSummaryStore store = new MappedSummaryStore(file, CAPACITY)) {
+            for (int i = 1; i <= 3; i++) {
+                store.put(key(i), value(i));
+            }
+        }
+        // A crash after the header was written but before the last record's page was:
+        // its marker never reached the disk
+        int tail = 16 + 2 * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(RECORD_BYTES), tail);
+        }
+
+        try (MappedSummaryStore reopened = new MappedSummaryStore(file, CAPACITY)) {
+            assertThat(reopened.get(key(1))).isEqualTo(value(1));
+            assertThat(reopened.get(key(2))).isEqualTo(value(2));
+            assertThat(reopened.get(key(3))).isNull();
+
+            // Writing resumes over the damaged record
+            reopened.put(key(4), value(4));
+        }
+
+        try (MappedSummaryStore reopened = new MappedSummaryStore(file, CAPACITY)) {
+            assertThat(reopened.size()).isEqualTo(3);
+            assertThat(reopened.get(key(4))).isEqualTo(value(4));
+        }
+    }
+
+    @Test
+    void recordWithLengthPastTheEndIsDroppedOnRecovery() throws IOException {
+        Path file = directory.resolve("cache.bin");
+        try (MappedSummaryStore store = new MappedSummaryStore(file, CAPACITY)) {
+            store.put(key(1), value(1));
+            store.put(key(2), value(2));
+        }
+        // A torn value length on the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, CAPACITY), 16 + RECORD_BYTES + 6);
+        }
+
+        try (MappedSummaryStore reopened = new MappedSummaryStore(file, CAPACITY)) {
+            assertThat(reopened.size()).isEqualTo(1);
+            assertThat(reopened.get(key(1))).isEqualTo(value(1));
+        }
+    }
+
+    private static String key(int i) {
+        return "k%03d".formatted(i);
+    }
+
+    private static String value(int i) {
+        return "summary number %05d".formatted(i);
+    }
+}
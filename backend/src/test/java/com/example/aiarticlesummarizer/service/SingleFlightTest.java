@@ -0,0 +1,191 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.api.dto.SummarizeRequest;
+import com.example.aiarticlesummarizer.api.dto.SummarizeResponse;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Identical concurrent summaries share one model call and one history row, for blocking callers
+ * and for streams joined part-way through.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:single-flight-test;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    /** Model calls made, and the gate that lets them answer. */
+    private static final AtomicInteger modelCalls = new AtomicInteger();
+    private static volatile CountDownLatch release;
+
+    @Autowired
+    private SummarizationService summarizationService;
+    @Autowired
+    private StreamingSummarizationService streamingSummarizationService;
+    @Autowired
+    private SummaryWriteBehind summaryWriteBehind;
+    @Autowired
+    private SummaryRepository summaryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @TestConfiguration
+    static class CountingModel {
+
+        /** Counts calls; answers once the test opens the gate. A stream sends its first chunk at once. */
+        @Bean
+        @Primary
+        ChatModel stubChatModel() {
+            return new ChatModel() {
+                @Override
+                public ChatResponse call(Prompt prompt) {
+                    modelCalls.incrementAndGet();
+                    awaitRelease();
+                    return response("The bank raised rates.");
+                }
+
+                @Override
+                public Flux<ChatResponse> stream(Prompt prompt) {
+                    return Flux.defer(() -> {
+                        modelCalls.incrementAndGet();
+                        return Flux.concat(
+                                Mono.just(response("The bank ")),
+                                Mono.fromCallable(() -> {
+                                    awaitRelease();
+                                    return response("raised rates.");
+                                }).subscribeOn(Schedulers.boundedElastic()));
+                    });
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        modelCalls.set(0);
+        release = new CountDownLatch(1);
+        jdbcTemplate.update("DELETE FROM summaries");
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentBlockingCallsShareOneModelCallAndOneRow() throws Exception {
+        double joinedBefore = joined("blocking").count();
+        List<Future<SummarizeResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            responses.add(callers.submit(() -> summarizationService.summarize(request("Blocking"))));
+        }
+
+        // Everyone but the leader is waiting on the leader's call
+        await().dontCatchUncaughtExceptions().atMost(WAIT)
+                .until(() -> joined("blocking").count() - joinedBefore == CALLERS - 1);
+        release.countDown();
+
+        List<Long> ids = new ArrayList<>();
+        for (Future<SummarizeResponse> response : responses) {
+            SummarizeResponse summary = response.get(10, TimeUnit.SECONDS);
+            assertThat(summary.getSummary()).isEqualTo("The bank raised rates.");
+            ids.add(summary.getId());
+        }
+        assertThat(modelCalls).hasValue(1);
+        assertThat(ids).doesNotContainNull().containsOnly(ids.get(0));
+        assertThat(summaryRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void lateStreamJoinerGetsTheChunksAlreadySent() throws Exception {
+        double joinedBefore = joined("streaming").count();
+        List<String> leader = new CopyOnWriteArrayList<>();
+        AtomicBoolean leaderDone = new AtomicBoolean();
+        streamingSummarizationService.summarizeStream(request("Streaming"), false)
+                .subscribe(event -> leader.add(event.data()), e -> { }, () -> leaderDone.set(true));
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(() -> leader.size() == 1);
+
+        List<String> joiner = new CopyOnWriteArrayList<>();
+        AtomicBoolean joinerDone = new AtomicBoolean();
+        streamingSummarizationService.summarizeStream(request("Streaming"), false)
+                .subscribe(event -> joiner.add(event.data()), e -> { }, () -> joinerDone.set(true));
+
+        // Replayed before the model has produced anything more
+        assertThat(joiner).containsExactly("The bank ");
+        assertThat(joined("streaming").count() - joinedBefore).isEqualTo(1);
+        release.countDown();
+
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(() -> leaderDone.get() && joinerDone.get());
+        assertThat(leader).containsExactly("The bank ", "raised rates.");
+        assertThat(joiner).containsExactly("The bank ", "raised rates.");
+        assertThat(modelCalls).hasValue(1);
+        summaryWriteBehind.awaitFlushed();
+        assertThat(summaryRepository.count()).isEqualTo(1);
+    }
+
+    private Counter joined(String mode) {
+        return meterRegistry.counter("summarizer.singleflight.joined", "mode", mode);
+    }
+
+    private static SummarizeRequest request(String label) {
+        SummarizeRequest request = new SummarizeRequest();
+        request.setContent(label + " article. The central bank raised interest rates again on Tuesday. "
+                + "Analysts had expected the move after inflation stayed high through the summer.");
+        request.setTargetLength("short");
+        return request;
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
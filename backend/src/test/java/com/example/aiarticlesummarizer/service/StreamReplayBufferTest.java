@@ -0,0 +1,194 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.service.StreamReplayBuffer.Position;
+import com.example.aiarticlesummarizer.service.StreamReplayBuffer.ResumeExpiredException;
+import com.example.aiarticlesummarizer.service.StreamReplayBuffer.Resumable;
+import com.example.aiarticlesummarizer.service.StreamReplayBuffer.Sequenced;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/** Resuming streamed summaries by Last-Event-ID, expiry, and the retained-bytes caps. */
+class StreamReplayBufferTest {
+
+    /** Retained size of a ten-character event: 64 bytes overhead plus two per char. */
+    private static final int EVENT_BYTES = 84;
+    private static final Duration BLOCK = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sinks.Many<StreamEvent> model = Sinks.many().unicast().onBackpressureBuffer();
+
+    @Test
+    void resumesAfterTheLastEventTheClientSaw() {
+        StreamReplayBuffer buffer = buffer(60, 1 << 20, 1 << 20);
+        Resumable opened = buffer.open(model.asFlux());
+        List<Sequenced> beforeDrop = new CopyOnWriteArrayList<>();
+        Disposable connection = opened.events().subscribe(beforeDrop::add);
+        emit(1, 3);
+        connection.dispose();
+        // Generation carries on with nobody attached
+        emit(4, 4);
+
+        List<Sequenced> resumed = new CopyOnWriteArrayList<>();
+        buffer.resume(new Position(opened.streamId(), 2)).subscribe(resumed::add);
+        emit(5, 5);
+        model.tryEmitComplete();
+
+        assertThat(seqs(beforeDrop)).containsExactly(1L, 2L, 3L);
+        assertThat(seqs(resumed)).containsExactly(3L, 4L, 5L);
+        assertThat(resumed).extracting(sequenced -> sequenced.event().data())
+                .containsExactly(text(3), text(4), text(5));
+        assertThat(meterRegistry.get("summarizer.streaming.resumed").tag("outcome", "live").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void resumesAFinishedStreamWithoutTheModel() {
+        StreamReplayBuffer buffer = buffer(60, 1 << 20, 1 << 20);
+        Resumable opened = buffer.open(model.asFlux());
+        opened.events().subscribe();
+        emit(1, 3);
+        model.tryEmitComplete();
+
+        List<Sequenced> rest = buffer.resume(new Position(opened.streamId(), 1)).collectList().block(BLOCK);
+        List<Sequenced> none = buffer.resume(new Position(opened.streamId(), 3)).collectList().block(BLOCK);
+
+        assertThat(seqs(rest)).containsExactly(2L, 3L);
+        assertThat(none).isEmpty();
+    }
+
+    @Test
+    void positionsNoLongerRetainedCannotBeResumed() {
+        // Room for three events per stream
+        StreamReplayBuffer buffer = buffer(60, 3 * EVENT_BYTES, 1 << 20);
+        Resumable opened = buffer.open(model.asFlux());
+        opened.events().subscribe();
+        emit(1, 6);
+
+        assertThatThrownBy(() -> buffer.resume(new Position(opened.streamId(), 1)).blockLast(BLOCK))
+                .isInstanceOf(ResumeExpiredException.class);
+        assertThatThrownBy(() -> buffer.resume(new Position("no-such-stream", 1)).blockLast(BLOCK))
+                .isInstanceOf(ResumeExpiredException.class);
+        List<Sequenced> resumed = new CopyOnWriteArrayList<>();
+        buffer.resume(new Position(opened.streamId(), 3)).subscribe(resumed::add);
+        assertThat(seqs(resumed)).containsExactly(4L, 5L, 6L);
+    }
+
+    @Test
+    void abandonedGenerationIsCancelledAfterTheGracePeriod() {
+        StreamReplayBuffer buffer = buffer(1, 1 << 20, 1 << 20);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Resumable opened = buffer.open(model.asFlux().doOnCancel(() -> cancelled.set(true)));
+        Disposable connection = opened.events().subscribe();
+        emit(1, 2);
+        connection.dispose();
+
+        buffer.expire();
+        assertThat(cancelled).isFalse();
+
+        await().dontCatchUncaughtExceptions().atMost(Duration.ofSeconds(5)).until(() -> {
+            buffer.expire();
+            return cancelled.get();
+        });
+        assertThatThrownBy(() -> buffer.resume(new Position(opened.streamId(), 2)).blockLast(BLOCK))
+                .isInstanceOf(ResumeExpiredException.class);
+        assertThat(meterRegistry.get("summarizer.streaming.replay.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void overTheTotalCapFinishedStreamsGoFirst() {
+        // Room for four events across all streams
+        StreamReplayBuffer buffer = buffer(60, 1 << 20, 4 * EVENT_BYTES);
+        Sinks.Many<StreamEvent> finishedModel = Sinks.many().unicast().onBackpressureBuffer();
+        Resumable finished = buffer.open(finishedModel.asFlux());
+        finished.events().subscribe();
+        for (int i = 1; i <= 3; i++) {
+            finishedModel.tryEmitNext(StreamEvent.chunk(text(i)));
+        }
+        finishedModel.tryEmitComplete();
+
+        Resumable growing = buffer.open(model.asFlux());
+        growing.events().subscribe();
+        emit(1, 5);
+
+        assertThatThrownBy(() -> buffer.resume(new Position(finished.streamId(), 0)).blockLast(BLOCK))
+                .isInstanceOf(ResumeExpiredException.class);
+        // Then the growing stream's own oldest event
+        assertThatThrownBy(() -> buffer.resume(new Position(growing.streamId(), 0)).blockLast(BLOCK))
+                .isInstanceOf(ResumeExpiredException.class);
+        List<Sequenced> resumed = new CopyOnWriteArrayList<>();
+        buffer.resume(new Position(growing.streamId(), 1)).subscribe(resumed::add);
+        assertThat(seqs(resumed)).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(meterRegistry.get("summarizer.streaming.replay.bytes").gauge().value())
+                .isEqualTo(4 * EVENT_BYTES);
+    }
+
+    @Test
+    void clientsJoiningDuringGenerationSeeEveryEventOnceInOrder() {
+        StreamReplayBuffer buffer = buffer(60, 1 << 24, 1 << 24);
+        Resumable opened = buffer.open(model.asFlux());
+        List<Sequenced> first = new CopyOnWriteArrayList<>();
+        opened.events().subscribe(first::add);
+        int events = 5000;
+        Disposable generation = Flux.range(1, events)
+                .subscribeOn(Schedulers.single())
+                .subscribe(i -> model.tryEmitNext(StreamEvent.chunk(text(i))), e -> { }, model::tryEmitComplete);
+
+        List<List<Sequenced>> joined = new ArrayList<>();
+        List<Long> joinedAfter = new ArrayList<>();
+        for (long after = 0; after < events && joined.size() < 20; after = lastSeq(first)) {
+            List<Sequenced> client = new CopyOnWriteArrayList<>();
+            buffer.resume(new Position(opened.streamId(), after)).subscribe(client::add);
+            joined.add(client);
+            joinedAfter.add(after);
+        }
+
+        await().dontCatchUncaughtExceptions().atMost(Duration.ofSeconds(10)).until(() -> first.size() == events);
+        generation.dispose();
+        assertThat(seqs(first)).isEqualTo(LongStream.rangeClosed(1, events).boxed().toList());
+        for (int i = 0; i < joined.size(); i++) {
+            List<Sequenced> client = joined.get(i);
+            long after = joinedAfter.get(i);
+            await().dontCatchUncaughtExceptions().atMost(Duration.ofSeconds(10))
+                    .until(() -> client.size() == events - after);
+            assertThat(seqs(client)).isEqualTo(LongStream.rangeClosed(after + 1, events).boxed().toList());
+        }
+    }
+
+    private StreamReplayBuffer buffer(long graceSeconds, long maxStreamBytes, long maxBytes) {
+        return new StreamReplayBuffer(meterRegistry, true, graceSeconds, maxStreamBytes, maxBytes);
+    }
+
+    private void emit(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            model.tryEmitNext(StreamEvent.chunk(text(i)));
+        }
+    }
+
+    /** Ten characters, so every event retains {@link #EVENT_BYTES}. */
+    private static String text(int i) {
+        return "event %04d".formatted(i);
+    }
+
+    private static List<Long> seqs(List<Sequenced> events) {
+        return events.stream().map(Sequenced::seq).toList();
+    }
+
+    private static long lastSeq(List<Sequenced> events) {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).seq();
+    }
+}
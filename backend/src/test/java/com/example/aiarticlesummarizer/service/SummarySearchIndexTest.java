@@ -0,0 +1,282 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/** Search, persistence and recovery of the history index against an in-memory table. */
+class SummarySearchIndexTest {
+
+    private static final List<String> QUERIES = List.of(
+            "central bank", "rates", "inflation", "harbour", "bank rat", "centr", "weather forecast", "rain");
+
+    @TempDir
+    Path directory;
+
+    /** The summaries table: rows the index reads while loading. */
+    private final List<Summary> table = new CopyOnWriteArrayList<>();
+    /** The {@code id >} bound of each page the index read. */
+    private final List<Long> pagesReadAfter = new CopyOnWriteArrayList<>();
+    private final List<SummarySearchIndex> opened = new ArrayList<>();
+
+    private final SummaryRepository repository = (SummaryRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {SummaryRepository.class}, (proxy, method, args) -> {
+                if (!method.getName().equals("findByIdGreaterThanOrderByIdAsc")) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                long after = (Long) args[0];
+                pagesReadAfter.add(after);
+                return table.stream()
+                        .filter(row -> row.getId() > after)
+                        .limit(((Pageable) args[1]).getPageSize())
+                        .toList();
+            });
+
+    @AfterEach
+    void closeIndexes() throws InterruptedException {
+        for (SummarySearchIndex index : opened) {
+            index.shutdown();
+        }
+    }
+
+    @Test
+    void everyQueryTermMustMatch() {
+        table.addAll(articles());
+        SummarySearchIndex index = open(8);
+
+        assertThat(ids(index, "central bank")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index, "bank harbour")).isEmpty();
+        assertThat(ids(index, "harbour ferry")).containsExactly(4L);
+    }
+
+    @Test
+    void lastWordMatchesAsAPrefixWhileTyping() {
+        table.addAll(articles());
+        SummarySearchIndex index = open(8);
+
+        assertThat(ids(index, "harb")).containsExactly(4L);
+        assertThat(ids(index, "central ba")).containsExactlyInAnyOrder(1L, 2L);
+        // A finished word (trailing space) is matched whole
+        assertThat(ids(index, "harb ")).isEmpty();
+    }
+
+    @Test
+    void prefixMatchesTheWordAsWrittenNotItsStem() throws InterruptedException {
+        table.add(summary(1L, "Running shoes", "Trail running needs grip.", "Shoes for runners."));
+        table.add(summary(2L, "Computing history", "Early computing used valves.", "Computers then."));
+        table.add(summary(3L, "Runway closed", "The airport runway reopens soon.", "Runway works."));
+        SummarySearchIndex index = open(8);
+        index.snapshot();
+        close(index);
+
+        // Reopened, so the words come back from the segment file
+        SummarySearchIndex reopened = open(8);
+
+        assertThat(ids(reopened, "runni")).containsExactly(1L);
+        assertThat(ids(reopened, "computi")).containsExactly(2L);
+        assertThat(ids(reopened, "runwa")).containsExactly(3L);
+        assertThat(reopened.snippet(table.get(0), "trail runni")).contains("<mark>running</mark>");
+    }
+
+    @Test
+    void titleMatchesRankAboveBodyMatches() {
+        table.addAll(articles());
+        SummarySearchIndex index = open(8);
+
+        assertThat(ids(index, "inflation")).startsWith(2L);
+    }
+
+    @Test
+    void deletesThenCompactLeaveResultsUnchanged() {
+        table.addAll(generated(1, 60));
+        SummarySearchIndex index = open(8);
+        for (long id = 3; id <= 60; id += 4) {
+            index.remove(id);
+        }
+        index.awaitIndexed(5000);
+        List<List<SummarySearchIndex.Hit>> before = results(index);
+
+        index.compact();
+
+        assertThat(results(index)).isEqualTo(before);
+        assertThat(ids(index, "central")).doesNotContain(3L, 7L, 59L);
+    }
+
+    @Test
+    void savedSegmentsReloadToIdenticalResults() throws IOException, InterruptedException {
+        table.addAll(generated(1, 40));
+        SummarySearchIndex index = open(8);
+        index.snapshot();  // base, after the rebuild from the table
+        generated(41, 60).forEach(index::add);
+        index.remove(5L);
+        index.remove(45L);
+        index.awaitIndexed(5000);
+        index.snapshot();  // first delta
+        index.add(summary(5L, "Harbour ferry returns", "The harbour ferry is back on its winter timetable.", "Ferry."));
+        index.awaitIndexed(5000);
+        index.snapshot();  // second delta: re-added row
+        List<List<SummarySearchIndex.Hit>> saved = results(index);
+        close(index);
+        pagesReadAfter.clear();
+
+        SummarySearchIndex reopened = open(8);
+
+        assertThat(results(reopened)).isEqualTo(saved);
+        // Only rows past the saved ones were asked for
+        assertThat(pagesReadAfter).containsExactly(60L);
+        assertThat(files())
+                .contains("index.seg", "index.seg.2", "index.seg.3");
+    }
+
+    @Test
+    void mergedDeltasReloadToIdenticalResults() throws IOException, InterruptedException {
+        table.addAll(generated(1, 20));
+        SummarySearchIndex index = open(2);
+        index.snapshot();
+        for (int round = 0; round < 3; round++) {
+            generated(21 + round * 10, 30 + round * 10).forEach(index::add);
+            index.remove(2L + round);
+            index.awaitIndexed(5000);
+            index.snapshot();
+        }
+        List<List<SummarySearchIndex.Hit>> saved = results(index);
+        close(index);
+
+        SummarySearchIndex reopened = open(2);
+
+        assertThat(results(reopened)).isEqualTo(saved);
+        // Two deltas were folded into the base; the third is still separate
+        assertThat(files())
+                .containsExactlyInAnyOrder("index.seg", "index.seg.4");
+    }
+
+    @Test
+    void corruptSegmentIsRebuiltFromTheTable() throws IOException, InterruptedException {
+        table.addAll(generated(1, 30));
+        SummarySearchIndex index = open(8);
+        index.snapshot();
+        List<List<SummarySearchIndex.Hit>> saved = results(index);
+        close(index);
+        Path segment = directory.resolve("index.seg");
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length / 2] ^= 0x5a;
+        Files.write(segment, bytes);
+        pagesReadAfter.clear();
+
+        SummarySearchIndex reopened = open(8);
+
+        assertThat(pagesReadAfter).startsWith(0L);
+        assertThat(results(reopened)).isEqualTo(saved);
+    }
+
+    @Test
+    void truncatedDeltaIsRebuiltFromTheTable() throws IOException, InterruptedException {
+        table.addAll(generated(1, 30));
+        SummarySearchIndex index = open(8);
+        index.snapshot();
+        index.remove(4L);
+        index.awaitIndexed(5000);
+        index.snapshot();
+        close(index);
+        Path delta = directory.resolve("index.seg.2");
+        Files.write(delta, Arrays.copyOf(Files.readAllBytes(delta), 10));
+        table.removeIf(row -> row.getId() == 4L);
+        pagesReadAfter.clear();
+
+        SummarySearchIndex reopened = open(8);
+
+        assertThat(pagesReadAfter).startsWith(0L);
+        assertThat(ids(reopened, "central")).hasSize(29).doesNotContain(4L);
+        assertThat(directory.resolve("index.seg.2")).doesNotExist();
+    }
+
+    @Test
+    void snippetEscapesMarkupAndMarksMatches() {
+        SummarySearchIndex index = open(8);
+        Summary summary = summary(1L, "Rates", "Article text",
+                "Banks <b>raised</b> rates & said \"more\" hikes would follow.");
+
+        String snippet = index.snippet(summary, "rates");
+
+        assertThat(snippet).isEqualTo(
+                "Banks &lt;b&gt;raised&lt;/b&gt; <mark>rates</mark> &amp; said &quot;more&quot; hikes would follow.");
+    }
+
+    private SummarySearchIndex open(int maxDeltas) {
+        SummarySearchIndex index = new SummarySearchIndex(repository, new SimpleMeterRegistry(), true,
+                directory.resolve("index.seg").toString(), 7, maxDeltas);
+        opened.add(index);
+        // Other threads in this JVM (e.g. a cached web context) are none of this test's business
+        await().dontCatchUncaughtExceptions().atMost(Duration.ofSeconds(10)).until(() -> index.search("x", 0, 1) != null);
+        return index;
+    }
+
+    private void close(SummarySearchIndex index) throws InterruptedException {
+        opened.remove(index);
+        index.shutdown();
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).toList();
+        }
+    }
+
+    private static List<Long> ids(SummarySearchIndex index, String query) {
+        return index.search(query, 0, 100).hits().stream().map(SummarySearchIndex.Hit::summaryId).toList();
+    }
+
+    private static List<List<SummarySearchIndex.Hit>> results(SummarySearchIndex index) {
+        return QUERIES.stream().map(query -> index.search(query, 0, 100).hits()).toList();
+    }
+
+    private static List<Summary> articles() {
+        return List.of(
+                summary(1L, "Central bank holds", "The central bank kept its main rate unchanged.", "Rates unchanged."),
+                summary(2L, "Inflation worries the central bank", "Prices rose again, and the bank may act.",
+                        "Central bank watches inflation."),
+                summary(3L, "Weather", "Rain and wind are expected with some inflation of river levels.", "Rain."),
+                summary(4L, "Harbour ferry", "The harbour ferry runs hourly in summer.", "Ferry timetable."));
+    }
+
+    /** Rows mixing a few topics, so queries match overlapping subsets. */
+    private static List<Summary> generated(long fromId, long toId) {
+        String[] topics = {"central bank rates inflation", "harbour ferry weather", "rain weather forecast",
+                "bank rating agencies"};
+        List<Summary> rows = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            String topic = topics[(int) (id % topics.length)];
+            rows.add(summary(id, "Report " + id + " " + topic,
+                    "Article " + id + " about " + topic + " and the central question of " + topics[(int) (id * 7 % 4)],
+                    "Summary of " + topic));
+        }
+        return rows;
+    }
+
+    private static Summary summary(long id, String title, String content, String text) {
+        Summary summary = new Summary();
+        summary.setId(id);
+        summary.setArticleTitle(title);
+        summary.setOriginalContent(content);
+        summary.setSummary(text);
+        return summary;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.aiarticlesummarizer.service;
+
+import com.example.aiarticlesummarizer.model.Summary;
+import com.example.aiarticlesummarizer.repository.SummaryRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Batching, backpressure, failure isolation and shutdown of the summary writer against the test
+ * database. Each test holds the writer inside its first transaction so rows pile up behind it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:write-behind-test;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class SummaryWriteBehindTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    @Autowired
+    private SummaryRepository summaryRepository;
+    @Autowired
+    private SummarySearchIndex searchIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /** Transactions the writer started, and the gate that lets them run. */
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final CountDownLatch open = new CountDownLatch(1);
+    private final List<SummaryWriteBehind> writers = new ArrayList<>();
+
+    @TestConfiguration
+    static class StubModel {
+
+        @Bean
+        @Primary
+        ChatModel stubChatModel() {
+            return prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("Stub summary."))));
+        }
+    }
+
+    @BeforeEach
+    void emptyTable() {
+        jdbcTemplate.update("DELETE FROM summaries");
+    }
+
+    @AfterEach
+    void stopWriters() throws InterruptedException {
+        open.countDown();
+        for (SummaryWriteBehind writer : writers) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void rowsQueuedDuringAFlushGoInOneBatch() throws Exception {
+        SummaryWriteBehind writer = writer(100);
+        CompletableFuture<Summary> first = writer.enqueue(summary("first"));
+        awaitWriterHeld();
+
+        List<CompletableFuture<Summary>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queued.add(writer.enqueue(summary("queued " + i)));
+        }
+        open.countDown();
+        queued.add(first);
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        DistributionSummary batches = meterRegistry.get("summarizer.persistence.batch.size").summary();
+        // Recorded just after the rows' futures complete
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(() -> batches.count() == 2);
+        assertThat(transactions).hasValue(2);
+        assertThat(batches.max()).isEqualTo(10);
+        assertThat(queued).allSatisfy(saved -> assertThat(saved.join().getId()).isNotNull());
+        assertThat(summaryRepository.count()).isEqualTo(11);
+    }
+
+    @Test
+    void fullQueueBlocksCallersButNotEventLoops() throws Exception {
+        SummaryWriteBehind writer = writer(2);
+        List<CompletableFuture<Summary>> saves = new ArrayList<>();
+        saves.add(writer.enqueue(summary("held")));
+        awaitWriterHeld();
+        saves.add(writer.enqueue(summary("queued 1")));
+        saves.add(writer.enqueue(summary("queued 2")));
+
+        CompletableFuture<CompletableFuture<Summary>> blocking =
+                CompletableFuture.supplyAsync(() -> writer.enqueue(summary("blocking caller")));
+        CompletableFuture<Summary> fromEventLoop = Mono.fromCallable(() -> writer.enqueue(summary("event loop")))
+                .subscribeOn(Schedulers.parallel())
+                .block(Duration.ofSeconds(1));
+
+        assertThat(fromEventLoop).isNotDone();
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(() ->
+                meterRegistry.get("summarizer.persistence.backpressure").counter().count() == 2);
+        assertThat(blocking).isNotDone();
+
+        open.countDown();
+        saves.add(blocking.get(10, TimeUnit.SECONDS));
+        saves.add(fromEventLoop);
+        CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(summaryRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void aBadRowFailsAloneAfterTheBatchIsRetriedRowByRow() throws Exception {
+        SummaryWriteBehind writer = writer(100);
+        CompletableFuture<Summary> first = writer.enqueue(summary("first"));
+        awaitWriterHeld();
+        CompletableFuture<Summary> good = writer.enqueue(summary("good"));
+        Summary tooLong = summary("bad");
+        tooLong.setTargetLength("longer than the twenty character column");
+        CompletableFuture<Summary> bad = writer.enqueue(tooLong);
+        CompletableFuture<Summary> alsoGood = writer.enqueue(summary("also good"));
+
+        open.countDown();
+        CompletableFuture.allOf(first, good, alsoGood).get(10, TimeUnit.SECONDS);
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(bad::isDone);
+
+        assertThat(bad).isCompletedExceptionally();
+        assertThat(meterRegistry.get("summarizer.persistence.failed").counter().count()).isEqualTo(1);
+        assertThat(summaryRepository.findAll()).extracting(Summary::getSummary)
+                .containsExactlyInAnyOrder("first", "good", "also good");
+    }
+
+    @Test
+    void shutdownFlushesQueuedRows() throws Exception {
+        SummaryWriteBehind writer = writer(100);
+        List<CompletableFuture<Summary>> saves = new ArrayList<>();
+        saves.add(writer.enqueue(summary("held")));
+        awaitWriterHeld();
+        for (int i = 0; i < 5; i++) {
+            saves.add(writer.enqueue(summary("queued " + i)));
+        }
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> {
+            try {
+                writer.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        open.countDown();
+        shutdown.get(10, TimeUnit.SECONDS);
+
+        assertThat(saves).allSatisfy(saved -> assertThat(saved).isCompleted());
+        assertThat(summaryRepository.count()).isEqualTo(6);
+        // After shutdown a save is written directly
+        assertThat(writer.enqueue(summary("late"))).isCompleted();
+        assertThat(summaryRepository.count()).isEqualTo(7);
+    }
+
+    @Test
+    void sequenceMovesPastRowsWithExistingIds() {
+        jdbcTemplate.update("INSERT INTO summaries (id, original_content, summary, latency_ms, created_at) "
+                + "VALUES (5000, 'Article', 'Old summary', 1, CURRENT_TIMESTAMP)");
+
+        writer(100);
+
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR summaries_seq", Long.class);
+        // The pooled optimizer hands out the 50 ids ending at the sequence value
+        assertThat(next - Summary.ID_ALLOCATION_SIZE).isGreaterThan(5000);
+    }
+
+    private SummaryWriteBehind writer(int queueCapacity) {
+        SummaryWriteBehind writer = new SummaryWriteBehind(summaryRepository, searchIndex,
+                new GatedTransactions(transactionManager), jdbcTemplate, meterRegistry, true, queueCapacity, 50, 2000);
+        writers.add(writer);
+        return writer;
+    }
+
+    private void awaitWriterHeld() {
+        await().dontCatchUncaughtExceptions().atMost(WAIT).until(() -> transactions.get() == 1);
+    }
+
+    private static Summary summary(String text) {
+        Summary summary = new Summary();
+        summary.setOriginalContent("Article for " + text);
+        summary.setSummary(text);
+        summary.setLatencyMs(1L);
+        return summary;
+    }
+
+    /** Counts the writer's transactions and holds each one until the test opens the gate. */
+    private class GatedTransactions extends TransactionTemplate {
+
+        GatedTransactions(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            transactions.incrementAndGet();
+            try {
+                open.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.execute(action);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import { Login } from './pages/Login';
 import { Register } from './pages/Register';
 import { Admin } from './pages/Admin';
 
-type TargetLength = 'short' | 'medium' | 'long';
+type TargetLength = 'instant' | 'short' | 'medium' | 'long';
 type InputMode = 'text' | 'url';
 
 interface SummarizeResponse {
@@ -61,9 +61,12 @@ function SummarizerApp() {
     loadHistory();
   }, []);
 
-  const loadHistory = async () => {
+  // afterStream: the stream's summary is saved in the background; ask the server to wait for it
+  const loadHistory = async (afterStream = false) => {
     try {
-      const res = await axios.get<SummaryHistoryItem[]>('/api/v1/history?limit=20');
+      const res = await axios.get<SummaryHistoryItem[]>(
+        `/api/v1/history?limit=20${afterStream ? '&afterStream=true' : ''}`
+      );
       setHistory(res.data);
     } catch (err) {
       console.error('Failed to load history:', err);
@@ -132,7 +135,8 @@ function SummarizerApp() {
       // Use fetch with ReadableStream for POST requests with SSE
       const headers: Record<string, string> = { 'Content-Type': 'application/json' };
       if (token) headers['Authorization'] = `Bearer ${token}`;
-      const response = await fetch(`${API_BASE}/api/v1/summarize/stream`, {
+      // draft=true: the server first sends an extractive "draft" event while the model warms up
+      const response = await fetch(`${API_BASE}/api/v1/summarize/stream?draft=true`, {
         method: 'POST',
         headers,
         body: JSON.stringify(requestData),
@@ -147,6 +151,7 @@ function SummarizerApp() {
       const decoder = new TextDecoder();
       let buffer = '';
       let receivedDone = false;
+      let showingDraft = false;
 
       if (!reader) {
         throw new Error('No response body');
@@ -199,6 +204,13 @@ function SummarizerApp() {
             return;
           }
 
+          // The draft is shown until the first model chunk replaces it
+          if (eventName === 'draft') {
+            showingDraft = true;
+            setStreamingText(data);
+            continue;
+          }
+
           if (data) {
             if (data.trim() === '[DONE]') {
               receivedDone = true;
@@ -207,12 +219,12 @@ function SummarizerApp() {
               setIsLoading(false);
 
               // Load history to get the saved summary with ID
-              await loadHistory();
+              await loadHistory(true);
 
               // Find the most recent summary and set it as selected
               // This ensures the summary section stays visible with the final content
               try {
-                const historyResponse = await axios.get('/api/v1/history?limit=1');
+                const historyResponse = await axios.get('/api/v1/history?limit=1&afterStream=true');
                 if (historyResponse.data && historyResponse.data.length > 0) {
                   setSelectedHistoryItem(historyResponse.data[0]);
                 }
@@ -227,7 +239,10 @@ function SummarizerApp() {
             
             // Append data with smart spacing
             // Ollama sends token-level chunks that may not include spaces between words
-            setStreamingText((prev) => {
+            const replaceDraft = showingDraft;
+            showingDraft = false;
+            setStreamingText((current) => {
+              const prev = replaceDraft ? '' : current;
               let newText = prev;
               
               // Add space between chunks if needed to prevent word concatenation
@@ -320,9 +335,9 @@ function SummarizerApp() {
         setResponse(null);
         setError((prev) => prev || 'Stream ended without completing. The request may have failed.');
       } else {
-        await loadHistory();
+        await loadHistory(true);
         try {
-          const historyResponse = await axios.get('/api/v1/history?limit=1');
+          const historyResponse = await axios.get('/api/v1/history?limit=1&afterStream=true');
           if (historyResponse.data && historyResponse.data.length > 0) {
             setSelectedHistoryItem(historyResponse.data[0]);
           }
@@ -537,7 +552,7 @@ function SummarizerApp() {
                 <div className="bento-item-group">
                   <div className="field-label" style={{ marginBottom: '0.5rem', fontSize: '0.85rem' }}>Summary length</div>
                   <div className="bento-item-group-inner">
-                    {(['short', 'medium', 'long'] as TargetLength[]).map((option) => (
+                    {(['instant', 'short', 'medium', 'long'] as TargetLength[]).map((option) => (
                       <button
                         key={option}
                         type="button"